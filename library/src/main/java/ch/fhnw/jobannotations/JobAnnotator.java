@@ -8,19 +8,47 @@ import ch.fhnw.jobannotations.extractors.location.LocationExtractor;
 import ch.fhnw.jobannotations.extractors.organisation.OrganisationExtractor;
 import ch.fhnw.jobannotations.extractors.skills.SkillExtractor;
 import ch.fhnw.jobannotations.extractors.workload.WorkloadExtractor;
+import ch.fhnw.jobannotations.utils.ConfigurationUtil;
+import ch.fhnw.jobannotations.utils.DictionaryRegistry;
+import ch.fhnw.jobannotations.utils.LruCache;
 import ch.fhnw.jobannotations.utils.NlpHelper;
+import ch.fhnw.jobannotations.utils.NlpProfile;
+import ch.fhnw.jobannotations.utils.StringUtils;
 import org.apache.log4j.Logger;
 import org.jsoup.Jsoup;
 import org.jsoup.nodes.Document;
 
 import java.io.IOException;
-import java.util.ArrayList;
+import java.io.InputStream;
+import java.util.AbstractMap;
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.stream.Stream;
 
 /**
  * Parses job offer information from job offer documents by using extractors that implement the {@link IExtractor}
  * interface.
+ * <p>
+ * A single instance may be shared between threads. Use {@link #parseAll(Collection, BiConsumer)} to parse multiple job
+ * offers with a bounded pool of worker threads. To reduce the latency of single job offers, the extractors may be run
+ * concurrently by enabling {@link #setParallelExtraction(boolean)}. Results of unchanged job offers are cached, see
+ * {@link #getResultCache()}. Learned results are written to the train files in the background, call
+ * {@link #shutdown()} to flush them.
  *
  * @author Kevin Kirn <kevin.kirn@students.fhnw.ch>
  */
@@ -28,7 +56,21 @@ public class JobAnnotator {
 
     private final static Logger LOG = Logger.getLogger(JobAnnotator.class);
 
-    private List<IExtractor> extractors;
+    // number of pending job offers per worker thread while parsing in batch mode
+    private static final int PENDING_JOB_OFFERS_PER_THREAD = 2;
+
+    private final List<IExtractor> extractors;
+
+    // results by extractors, dictionary versions and hash of the normalized plain text
+    private final LruCache<String, Map<String, String>> resultCache;
+
+    // learned data is written to the train files in the background
+    private final LearningQueue learningQueue;
+
+    private volatile boolean parallelExtraction;
+
+    // created on first use and shut down by shutdown(), guarded by this
+    private ExecutorService extractorExecutor;
 
     /**
      * Constructs a JobAnnotator instance with default extractor List.
@@ -46,7 +88,10 @@ public class JobAnnotator {
         // load nlp models
         NlpHelper.getInstance();
 
-        extractors = new ArrayList<>();
+        extractors = new CopyOnWriteArrayList<>();
+        resultCache = new LruCache<>(ConfigurationUtil.getInt("configuration.result.cache.size", 1000));
+        learningQueue = new LearningQueue();
+        parallelExtraction = Boolean.parseBoolean(ConfigurationUtil.get("configuration.parallel.extractors", "false"));
 
         if (useDefaultExtractors) {
             LOG.debug("Using default extractors");
@@ -67,30 +112,365 @@ public class JobAnnotator {
      * @return Parsed job offer information as a map or an empty map if something failed
      */
     public HashMap<String, String> parse(String url) {
-        HashMap<String, String> result = new HashMap<>();
-
         try {
             // create job offer by url
             Document document = Jsoup.connect(url).get();
-            JobOffer jobOffer = new JobOffer(document);
+            return parse(document);
 
-            for (IExtractor extractor : extractors) {
+        } catch (IOException e) {
+            LOG.error("Something went wrong while parsing the job offer:\n", e);
+        }
 
-                String candidates = extractor.parse(jobOffer);
+        return new HashMap<>();
+    }
 
-                extractor.learn(candidates);
+    /**
+     * Parses job offer information from given HTML String. No network I/O is done, relative links are resolved with
+     * the given base uri.
+     *
+     * @param html    HTML of job offer document to be parsed
+     * @param baseUri Url the HTML has been fetched from, may be empty
+     * @return Parsed job offer information as a map
+     * @see #parse(Document)
+     */
+    public HashMap<String, String> parseHtml(String html, String baseUri) {
+        return parse(Jsoup.parse(html, baseUri));
+    }
 
-                result.put(extractor.getClass().getSimpleName(), candidates);
+    /**
+     * Parses job offer information from given input stream. No network I/O is done, relative links are resolved with
+     * the given base uri. The stream is read completely but not closed.
+     *
+     * @param input       Stream of job offer document to be parsed
+     * @param charsetName Charset of the stream or null to detect it from the document
+     * @param baseUri     Url the document has been fetched from, may be empty
+     * @return Parsed job offer information as a map or an empty map if something failed
+     * @see #parse(Document)
+     */
+    public HashMap<String, String> parse(InputStream input, String charsetName, String baseUri) {
+        try {
+            return parse(Jsoup.parse(input, charsetName, baseUri));
+
+        } catch (IOException e) {
+            LOG.error("Something went wrong while reading the job offer:\n", e);
+        }
+
+        return new HashMap<>();
+    }
+
+    /**
+     * Parses job offer information from given job offer document by using the added extractors and returns the
+     * results as a map with extractor class name as key and parsed results as value. If a job offer with the same
+     * plain text has already been parsed by the same extractors and dictionaries, the cached results are returned
+     * without running and training the extractors again.
+     *
+     * @param document Job offer document to be parsed
+     * @return Parsed job offer information as a map
+     */
+    public HashMap<String, String> parse(Document document) {
+        JobOffer jobOffer = new JobOffer(document, getRequiredNlpProfile());
 
+        String cacheKey = null;
+        if (resultCache.getMaxSize() > 0) {
+            cacheKey = getResultCacheKey(jobOffer);
+            Map<String, String> cachedResult = resultCache.get(cacheKey);
+            if (cachedResult != null) {
+                LOG.debug("Using cached results of job offer");
+                return new HashMap<>(cachedResult);
             }
+        }
 
-        } catch (IOException e) {
-            LOG.error("Something went wrong while parsing the job offer:\n", e);
+        HashMap<String, String> result;
+        if (parallelExtraction && extractors.size() > 1) {
+            result = parseConcurrently(jobOffer);
+        } else {
+            result = parseSequentially(jobOffer);
+        }
+
+        // results of interrupted parsing are incomplete
+        if (cacheKey != null && !Thread.currentThread().isInterrupted()) {
+            resultCache.put(cacheKey, new HashMap<>(result));
+        }
+        return result;
+    }
+
+    /**
+     * Parses job offer information from given job offer by running all extractors one after another.
+     *
+     * @param jobOffer Job offer to be parsed
+     * @return Parsed job offer information as a map
+     */
+    private HashMap<String, String> parseSequentially(JobOffer jobOffer) {
+        HashMap<String, String> result = new HashMap<>();
+
+        for (IExtractor extractor : extractors) {
+
+            String candidates = extractor.parse(jobOffer);
+
+            learningQueue.add(extractor, candidates);
+
+            result.put(extractor.getClass().getSimpleName(), candidates);
+
+        }
+
+        return result;
+    }
+
+    /**
+     * Creates the key of the cached results of given job offer, see {@link #getResultCache()} for the inputs it
+     * covers.
+     *
+     * @param jobOffer Job offer to be parsed
+     * @return Key of the cached results
+     */
+    private String getResultCacheKey(JobOffer jobOffer) {
+        StringBuilder key = new StringBuilder();
+        for (IExtractor extractor : extractors) {
+            key.append(extractor.getClass().getName()).append(',');
+        }
+        key.append(NlpHelper.getInstance().getDictionaryVersion()).append(':');
+        key.append(DictionaryRegistry.getInstance().getVersion()).append(':');
+        key.append(StringUtils.hash(StringUtils.normalizeSpace(jobOffer.getPlainText())));
+        return key.toString();
+    }
+
+    /**
+     * Returns the cache of parsed results, e.g. to read its hit and miss counters or to clear it. The size of the
+     * cache is defined by <code>configuration.result.cache.size</code>, 0 disables caching. The key of the cached
+     * results covers:
+     * <ul>
+     * <li>the classes of the added extractors in their order,</li>
+     * <li>the version of the dictionaries managed by {@link NlpHelper}, which changes whenever learned entries are
+     * merged or a dictionary file is reloaded,</li>
+     * <li>the version of the {@link DictionaryRegistry}, which changes whenever a file read through it is reloaded,
+     * e.g. the known languages of the {@link LanguageExtractor},</li>
+     * <li>the hash of the plain text of the whole document with normalized whitespace.</li>
+     * </ul>
+     * The configuration, e.g. the pruning of boilerplate blocks, is read once per process and cannot change while
+     * results are cached. Not covered are the state of custom extractors beyond their class, the markup of the
+     * document as far as it does not change its plain text, e.g. heading tags read by the {@link TitleExtractor} or
+     * the classes marking footers and boilerplate, and the answers of external services like the location search of
+     * the {@link LocationExtractor}. Postings differing in those only share their results, clear the cache if they
+     * are relevant.
+     *
+     * @return Cache of parsed results by extractors, dictionary versions and plain text hash
+     */
+    public LruCache<String, Map<String, String>> getResultCache() {
+        return resultCache;
+    }
+
+    /**
+     * Determines the smallest NLP profile that satisfies all added extractors.
+     *
+     * @return Required NLP profile to annotate job offers with
+     */
+    private NlpProfile getRequiredNlpProfile() {
+        NlpProfile requiredProfile = NlpProfile.POS;
+        for (IExtractor extractor : extractors) {
+            requiredProfile = NlpProfile.max(requiredProfile, extractor.getRequiredNlpProfile());
+        }
+        return requiredProfile;
+    }
+
+    /**
+     * Parses job offer information from given job offer by running all extractors concurrently. Results are queued
+     * for learning on the calling thread once all extractors have finished.
+     *
+     * @param jobOffer Job offer to be parsed
+     * @return Parsed job offer information as a map
+     */
+    private HashMap<String, String> parseConcurrently(JobOffer jobOffer) {
+        HashMap<String, String> result = new HashMap<>();
+
+        // fan out extractors
+        Map<IExtractor, Future<String>> pendingCandidates = submitExtractors(jobOffer);
+
+        // join results
+        try {
+            for (Map.Entry<IExtractor, Future<String>> entry : pendingCandidates.entrySet()) {
+                IExtractor extractor = entry.getKey();
+
+                String candidates = entry.getValue().get();
+
+                learningQueue.add(extractor, candidates);
+
+                result.put(extractor.getClass().getSimpleName(), candidates);
+            }
+
+        } catch (InterruptedException e) {
+            LOG.warn("Parsing job offer has been interrupted");
+            pendingCandidates.values().forEach(future -> future.cancel(true));
+            Thread.currentThread().interrupt();
+
+        } catch (ExecutionException e) {
+            pendingCandidates.values().forEach(future -> future.cancel(true));
+
+            // propagate errors of extractors like in sequential mode
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            } else if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IllegalStateException(cause);
         }
 
         return result;
     }
 
+    /**
+     * Submits all extractors of given job offer to the executor used to run extractors concurrently. Creates the
+     * executor if it does not exist yet. Holds the same lock as {@link #shutdown()}, so the executor cannot be shut
+     * down while the extractors are submitted.
+     *
+     * @param jobOffer Job offer to be parsed
+     * @return Pending candidates by extractor in the order of the extractors
+     */
+    private synchronized Map<IExtractor, Future<String>> submitExtractors(JobOffer jobOffer) {
+        if (extractorExecutor == null) {
+            extractorExecutor = Executors.newCachedThreadPool(new WorkerThreadFactory("job-annotator-extractor-"));
+        }
+
+        Map<IExtractor, Future<String>> pendingCandidates = new LinkedHashMap<>();
+        for (IExtractor extractor : extractors) {
+            pendingCandidates.put(extractor, extractorExecutor.submit(() -> extractor.parse(jobOffer)));
+        }
+        return pendingCandidates;
+    }
+
+    /**
+     * Enables or disables concurrent execution of the extractors of a single job offer. If enabled, the latency of
+     * {@link #parse(Document)} depends on the slowest extractor instead of the sum of all extractors. Defaults to the
+     * value of <code>configuration.parallel.extractors</code>.
+     *
+     * @param parallelExtraction <code>true</code> to run extractors concurrently, <code>false</code> otherwise
+     */
+    public void setParallelExtraction(boolean parallelExtraction) {
+        this.parallelExtraction = parallelExtraction;
+    }
+
+    /**
+     * Checks whether the extractors of a single job offer are executed concurrently.
+     *
+     * @return <code>true</code> if extractors run concurrently, <code>false</code> otherwise
+     */
+    public boolean isParallelExtraction() {
+        return parallelExtraction;
+    }
+
+    /**
+     * Stops all threads used to run extractors concurrently and writes all pending learned results to the train
+     * files. Extractors submitted before are completed. Parsing remains possible afterwards, new threads are started
+     * if needed.
+     */
+    public synchronized void shutdown() {
+        if (extractorExecutor != null) {
+            extractorExecutor.shutdown();
+            extractorExecutor = null;
+        }
+        learningQueue.shutdown();
+    }
+
+    /**
+     * Parses job offer information from all given urls by using a pool of worker threads. The number of threads is
+     * defined by <code>configuration.parallel.threads</code> and defaults to the number of available processors.
+     * Results are passed to the given handler as soon as a job offer has been parsed, the handler is always invoked
+     * on the calling thread. This method blocks until all job offers have been parsed.
+     *
+     * @param urls          Urls of job offer documents to be parsed
+     * @param resultHandler Handler to be called with the url and the parsed results of every job offer
+     * @see #parse(String)
+     */
+    public void parseAll(Collection<String> urls, BiConsumer<String, HashMap<String, String>> resultHandler) {
+        parseAll(urls.iterator(), urls.size(), this::parse, resultHandler);
+    }
+
+    /**
+     * Parses job offer information from all given, already fetched documents by using a pool of worker threads.
+     * Documents are consumed lazily from the stream, so the stream may be backed by a crawler or a stored corpus.
+     *
+     * @param documents     Job offer documents to be parsed
+     * @param resultHandler Handler to be called with the document and the parsed results of every job offer
+     * @see #parseAll(Collection, BiConsumer)
+     * @see #parse(Document)
+     */
+    public void parseAll(Stream<Document> documents, BiConsumer<Document, HashMap<String, String>> resultHandler) {
+        parseAll(documents.iterator(), Integer.MAX_VALUE, this::parse, resultHandler);
+    }
+
+    /**
+     * Parses job offer information from all given sources by using a pool of worker threads.
+     *
+     * @param sources       Sources of job offers to be parsed
+     * @param nofSources    Number of sources, used to limit the number of threads
+     * @param parser        Function that parses a single source
+     * @param resultHandler Handler to be called with the source and the parsed results of every job offer
+     * @param <T>           Type of job offer source
+     */
+    private <T> void parseAll(Iterator<T> sources, int nofSources, Function<T, HashMap<String, String>> parser,
+                              BiConsumer<T, HashMap<String, String>> resultHandler) {
+
+        int nofThreads = ConfigurationUtil.getInt("configuration.parallel.threads", Runtime.getRuntime().availableProcessors());
+        nofThreads = Math.max(1, Math.min(nofThreads, nofSources));
+
+        LOG.debug("Parsing job offers with " + nofThreads + " threads");
+
+        ExecutorService executor = Executors.newFixedThreadPool(nofThreads, new WorkerThreadFactory("job-annotator-worker-"));
+        CompletionService<Map.Entry<T, HashMap<String, String>>> completionService = new ExecutorCompletionService<>(executor);
+
+        // only submit a few job offers per thread to keep memory usage bounded for large batches
+        int maxPendingJobOffers = nofThreads * PENDING_JOB_OFFERS_PER_THREAD;
+        int pendingJobOffers = 0;
+
+        try {
+            while (sources.hasNext() || pendingJobOffers > 0) {
+
+                while (pendingJobOffers < maxPendingJobOffers && sources.hasNext()) {
+                    T source = sources.next();
+                    completionService.submit(() -> new AbstractMap.SimpleImmutableEntry<>(source, parseSafely(source, parser)));
+                    pendingJobOffers++;
+                }
+
+                Future<Map.Entry<T, HashMap<String, String>>> completed = completionService.take();
+                pendingJobOffers--;
+
+                try {
+                    Map.Entry<T, HashMap<String, String>> entry = completed.get();
+                    resultHandler.accept(entry.getKey(), entry.getValue());
+
+                } catch (ExecutionException e) {
+                    LOG.error("Something went wrong while parsing a job offer:\n", e.getCause());
+                }
+            }
+
+        } catch (InterruptedException e) {
+            LOG.warn("Parsing job offers has been interrupted");
+            Thread.currentThread().interrupt();
+
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Parses job offer information from given source and makes sure that unexpected errors of extractors do not abort
+     * parsing of other job offers.
+     *
+     * @param source Source of job offer to be parsed
+     * @param parser Function that parses the source
+     * @param <T>    Type of job offer source
+     * @return Parsed job offer information as a map or an empty map if something failed
+     */
+    private <T> HashMap<String, String> parseSafely(T source, Function<T, HashMap<String, String>> parser) {
+        try {
+            return parser.apply(source);
+
+        } catch (RuntimeException e) {
+            LOG.error("Something went wrong while parsing a job offer:\n", e);
+            return new HashMap<>();
+        }
+    }
+
     /**
      * Adds extractor to extractor List.
      *
@@ -134,4 +514,24 @@ public class JobAnnotator {
     public boolean contains(IExtractor extractor) {
         return extractors.contains(extractor);
     }
+
+    /**
+     * Thread factory for daemon threads used to parse job offers and to run extractors concurrently.
+     */
+    private static class WorkerThreadFactory implements ThreadFactory {
+
+        private final AtomicInteger threadCounter = new AtomicInteger();
+        private final String threadNamePrefix;
+
+        WorkerThreadFactory(String threadNamePrefix) {
+            this.threadNamePrefix = threadNamePrefix;
+        }
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, threadNamePrefix + threadCounter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
 }
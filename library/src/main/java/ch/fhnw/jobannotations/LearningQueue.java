@@ -0,0 +1,219 @@
+package ch.fhnw.jobannotations;
+
+import ch.fhnw.jobannotations.extractors.IExtractor;
+import ch.fhnw.jobannotations.utils.ConfigurationUtil;
+import org.apache.log4j.Logger;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Write-behind queue for the data learned by extractors. Parsing threads only enqueue the learned data, a background
+ * thread passes it to {@link IExtractor#learn(String)} in batches of <code>configuration.ml.queue.batchSize</code>
+ * entries or after <code>configuration.ml.queue.flushInterval</code> milliseconds, whichever comes first.
+ * <p>
+ * The queue holds at most <code>configuration.ml.queue.capacity</code> entries. If it is full, learned data is dropped
+ * instead of blocking the parsing thread. A capacity of 0 disables the queue, data is learned on the calling thread.
+ * Pending data is flushed by {@link #shutdown()} and by a shutdown hook when the JVM exits.
+ */
+class LearningQueue {
+
+    private final static Logger LOG = Logger.getLogger(LearningQueue.class);
+
+    // wakes up the flusher thread when the queue is shut down
+    private static final LearnedData STOP = new LearnedData(null, null);
+
+    private final BlockingQueue<LearnedData> pendingData;
+    private final boolean synchronous;
+    private final int batchSize;
+    private final long flushInterval;
+    private final AtomicLong droppedCount = new AtomicLong();
+
+    private volatile boolean running;
+    private Thread flusherThread;
+    private Thread shutdownHook;
+
+    /**
+     * Constructs a queue with the capacity, batch size and flush interval of the configuration.
+     */
+    LearningQueue() {
+        this(ConfigurationUtil.getInt("configuration.ml.queue.capacity", 10000),
+                ConfigurationUtil.getInt("configuration.ml.queue.batchSize", 100),
+                ConfigurationUtil.getInt("configuration.ml.queue.flushInterval", 1000));
+    }
+
+    /**
+     * Constructs a queue.
+     *
+     * @param capacity      Max number of pending entries, 0 to learn on the calling thread
+     * @param batchSize     Number of pending entries that triggers a flush
+     * @param flushInterval Max milliseconds an entry is pending before it is flushed
+     */
+    LearningQueue(int capacity, int batchSize, long flushInterval) {
+        pendingData = new ArrayBlockingQueue<>(Math.max(1, capacity));
+        synchronous = capacity <= 0;
+        this.batchSize = Math.max(1, batchSize);
+        this.flushInterval = Math.max(0, flushInterval);
+    }
+
+    /**
+     * Enqueues given learned data of given extractor. Never blocks, the data is dropped if the queue is full. Learns
+     * the data immediately if the queue is disabled.
+     *
+     * @param extractor Extractor that found the data
+     * @param data      Data to be learned
+     */
+    void add(IExtractor extractor, String data) {
+        if (synchronous) {
+            extractor.learn(data);
+            return;
+        }
+
+        if (!pendingData.offer(new LearnedData(extractor, data))) {
+            if (droppedCount.incrementAndGet() == 1) {
+                LOG.warn("Learning queue is full, learned data is dropped");
+            }
+            return;
+        }
+
+        if (!running) {
+            start();
+        }
+    }
+
+    /**
+     * Passes all pending data to the extractors on the calling thread.
+     */
+    void flush() {
+        List<LearnedData> batch = new ArrayList<>();
+        while (pendingData.drainTo(batch, batchSize) > 0) {
+            learn(batch);
+            batch.clear();
+        }
+    }
+
+    /**
+     * Stops the background thread and flushes all pending data. Data added afterwards starts a new thread.
+     */
+    synchronized void shutdown() {
+        if (!running) {
+            flush();
+            return;
+        }
+
+        running = false;
+        pendingData.offer(STOP);
+        try {
+            // let the current batch finish, interrupting it could close the train files
+            flusherThread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        flusherThread = null;
+
+        try {
+            Runtime.getRuntime().removeShutdownHook(shutdownHook);
+        } catch (IllegalStateException e) {
+            // JVM is shutting down, the hook is running
+        }
+        shutdownHook = null;
+
+        flush();
+    }
+
+    /**
+     * Returns the number of entries that have been dropped because the queue was full.
+     *
+     * @return Number of dropped entries
+     */
+    long getDroppedCount() {
+        return droppedCount.get();
+    }
+
+    /**
+     * Starts the background thread and registers the shutdown hook.
+     */
+    private synchronized void start() {
+        if (running) {
+            return;
+        }
+
+        running = true;
+        flusherThread = new Thread(this::flushContinuously, "job-annotator-learning");
+        flusherThread.setDaemon(true);
+        flusherThread.start();
+
+        // the flusher thread may hold a batch, so it has to finish before the JVM exits
+        shutdownHook = new Thread(this::shutdown, "job-annotator-learning-shutdown");
+        Runtime.getRuntime().addShutdownHook(shutdownHook);
+    }
+
+    /**
+     * Collects pending data until the batch is full or the oldest entry has been pending for the flush interval, then
+     * passes the batch to the extractors. Runs until the queue is shut down.
+     */
+    private void flushContinuously() {
+        List<LearnedData> batch = new ArrayList<>();
+        try {
+            while (running) {
+                LearnedData first = pendingData.poll(flushInterval, TimeUnit.MILLISECONDS);
+                if (first == null || first == STOP) {
+                    continue;
+                }
+                batch.add(first);
+
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(flushInterval);
+                while (batch.size() < batchSize && running) {
+                    LearnedData next = pendingData.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+                    if (next == null || next == STOP) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+
+                learn(batch);
+                batch.clear();
+            }
+
+        } catch (InterruptedException e) {
+            // pending data is flushed by shutdown
+            learn(batch);
+        }
+    }
+
+    /**
+     * Passes given batch of learned data to the extractors. Errors of an extractor do not affect other entries.
+     *
+     * @param batch Learned data
+     */
+    private static void learn(List<LearnedData> batch) {
+        for (LearnedData learnedData : batch) {
+            if (learnedData == STOP) {
+                continue;
+            }
+
+            try {
+                learnedData.extractor.learn(learnedData.data);
+            } catch (RuntimeException e) {
+                LOG.error("Something went wrong while learning new data.", e);
+            }
+        }
+    }
+
+    /**
+     * Data learned by an extractor.
+     */
+    private static class LearnedData {
+        private final IExtractor extractor;
+        private final String data;
+
+        private LearnedData(IExtractor extractor, String data) {
+            this.extractor = extractor;
+            this.data = data;
+        }
+    }
+}
@@ -54,7 +54,7 @@ public class Main {
 
                     } else {
 
-                        Map<String, String> results = annotator.parse(url);
+                        Map<String, String> results = annotator.parse(document);
 
                         // print report
                         System.out.println("\n" + StringUtils.repeat("-", 80));
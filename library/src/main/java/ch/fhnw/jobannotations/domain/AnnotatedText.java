@@ -0,0 +1,187 @@
+package ch.fhnw.jobannotations.domain;
+
+import ch.fhnw.jobannotations.utils.NlpProfile;
+import edu.stanford.nlp.ling.CoreAnnotations;
+import edu.stanford.nlp.ling.CoreLabel;
+import edu.stanford.nlp.util.CoreMap;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Text together with its annotated sentences. Sentences and tokens are indexed by their character offsets, so the
+ * annotations of any span of the text can be looked up without annotating the span again.
+ */
+public class AnnotatedText {
+
+    private final String text;
+    private final NlpProfile profile;
+    private final List<CoreMap> sentences;
+    private final int[] sentenceBegins;
+    private final int[] sentenceEnds;
+
+    /**
+     * Constructs an annotated text.
+     *
+     * @param text      Annotated text
+     * @param profile   Profile the text has been annotated with
+     * @param sentences Annotated sentences of the text
+     */
+    public AnnotatedText(String text, NlpProfile profile, List<CoreMap> sentences) {
+        this.text = text;
+        this.profile = profile;
+        this.sentences = sentences;
+
+        sentenceBegins = new int[sentences.size()];
+        sentenceEnds = new int[sentences.size()];
+        for (int i = 0; i < sentences.size(); i++) {
+            sentenceBegins[i] = sentences.get(i).get(CoreAnnotations.CharacterOffsetBeginAnnotation.class);
+            sentenceEnds[i] = sentences.get(i).get(CoreAnnotations.CharacterOffsetEndAnnotation.class);
+        }
+    }
+
+    /**
+     * Returns the annotated text.
+     *
+     * @return Text
+     */
+    public String getText() {
+        return text;
+    }
+
+    /**
+     * Returns the profile the text has been annotated with.
+     *
+     * @return NLP profile
+     */
+    public NlpProfile getProfile() {
+        return profile;
+    }
+
+    /**
+     * Returns all annotated sentences of the text.
+     *
+     * @return Annotated sentences
+     */
+    public List<CoreMap> getSentences() {
+        return sentences;
+    }
+
+    /**
+     * Returns the annotated sentences overlapping the given span of the text.
+     *
+     * @param begin Offset of the first character of the span
+     * @param end   Offset after the last character of the span
+     * @return Annotated sentences overlapping the span, in text order
+     */
+    public List<CoreMap> getSentences(int begin, int end) {
+        return sentences.subList(getFirstSentenceIndex(begin), getLastSentenceIndex(begin, end));
+    }
+
+    /**
+     * Returns the annotated tokens within the given span of the text.
+     *
+     * @param begin Offset of the first character of the span
+     * @param end   Offset after the last character of the span
+     * @return Annotated tokens within the span, in text order
+     */
+    public List<CoreLabel> getTokens(int begin, int end) {
+        List<CoreLabel> tokens = new ArrayList<>();
+        for (CoreMap sentence : getSentences(begin, end)) {
+            for (CoreLabel token : sentence.get(CoreAnnotations.TokensAnnotation.class)) {
+                if (token.beginPosition() >= begin && token.endPosition() <= end) {
+                    tokens.add(token);
+                }
+            }
+        }
+
+        return tokens;
+    }
+
+    /**
+     * Looks up the annotated sentences of a part of the text. Since sentences are annotated independently of each
+     * other, the annotations of a part consisting of complete sentences equal the annotations of the part alone.
+     *
+     * @param part Part of the text
+     * @return Annotated sentences exactly covering the part or null if the part does not consist of complete sentences
+     */
+    public List<CoreMap> findSentences(String part) {
+        String trimmedPart = part.trim();
+        if (trimmedPart.isEmpty()) {
+            return null;
+        }
+
+        int begin = text.indexOf(trimmedPart);
+        while (begin >= 0) {
+            int end = begin + trimmedPart.length();
+            int first = getFirstSentenceIndex(begin);
+            int last = getLastSentenceIndex(begin, end);
+            if (first < last && sentenceBegins[first] == begin && sentenceEnds[last - 1] == end) {
+                return Collections.unmodifiableList(sentences.subList(first, last));
+            }
+
+            begin = text.indexOf(trimmedPart, begin + 1);
+        }
+
+        return null;
+    }
+
+    /**
+     * Returns the index of the first sentence ending after given offset.
+     *
+     * @param begin Offset of the first character of a span
+     * @return Index of the first sentence overlapping the span
+     */
+    private int getFirstSentenceIndex(int begin) {
+        return getIndexAfter(sentenceEnds, begin);
+    }
+
+    /**
+     * Returns the index after the last sentence beginning before given end offset.
+     *
+     * @param begin Offset of the first character of a span
+     * @param end   Offset after the last character of a span
+     * @return Index after the last sentence overlapping the span
+     */
+    private int getLastSentenceIndex(int begin, int end) {
+        return Math.max(getFirstSentenceIndex(begin), getIndexNotBefore(sentenceBegins, end));
+    }
+
+    /**
+     * Returns the index of the first offset greater than given offset.
+     *
+     * @param offsets Sorted offsets
+     * @param offset  Offset to be searched
+     * @return Index of the first greater offset or the number of offsets if there is none
+     */
+    private static int getIndexAfter(int[] offsets, int offset) {
+        int index = Arrays.binarySearch(offsets, offset);
+        if (index < 0) {
+            return -index - 1;
+        }
+        while (index < offsets.length && offsets[index] == offset) {
+            index++;
+        }
+        return index;
+    }
+
+    /**
+     * Returns the index of the first offset greater than or equal to given offset.
+     *
+     * @param offsets Sorted offsets
+     * @param offset  Offset to be searched
+     * @return Index of the first offset not before the given offset or the number of offsets if there is none
+     */
+    private static int getIndexNotBefore(int[] offsets, int offset) {
+        int index = Arrays.binarySearch(offsets, offset);
+        if (index < 0) {
+            return -index - 1;
+        }
+        while (index > 0 && offsets[index - 1] == offset) {
+            index--;
+        }
+        return index;
+    }
+}
@@ -1,18 +1,29 @@
 package ch.fhnw.jobannotations.domain;
 
 import ch.fhnw.jobannotations.JobAnnotator;
+import ch.fhnw.jobannotations.utils.BoilerplateDetector;
+import ch.fhnw.jobannotations.utils.ConfigurationUtil;
 import ch.fhnw.jobannotations.utils.HtmlUtils;
+import ch.fhnw.jobannotations.utils.Lazy;
 import ch.fhnw.jobannotations.utils.NlpHelper;
+import ch.fhnw.jobannotations.utils.NlpProfile;
 import ch.fhnw.jobannotations.utils.StringUtils;
 import edu.stanford.nlp.util.CoreMap;
 import org.apache.log4j.Logger;
 import org.jsoup.Jsoup;
 import org.jsoup.nodes.Document;
 import org.jsoup.nodes.Element;
+import org.jsoup.nodes.Node;
 import org.jsoup.select.Elements;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * This class acts as a wrapper for the job offer document by reading the job offer document and providing utility
@@ -24,61 +35,196 @@ public class JobOffer {
 
     private final static Logger LOG = Logger.getLogger(JobAnnotator.class);
     private static final String FOOTER_TAG_NAME = "footer";
+    private static final boolean PRUNE_BOILERPLATE = Boolean.parseBoolean(ConfigurationUtil.get("configuration.boilerplate.enabled", "false"));
+    private static final BoilerplateDetector BOILERPLATE_DETECTOR = new BoilerplateDetector();
 
     private final Document document;
     private final Element bodyElement;
-    private final Element bodyElementWithoutFooter;
-    private final Element footerElement;
+    private final NlpProfile nlpProfile;
 
-    private String plaintText;
-    private List<String> plainTextLines;
-    private final List<CoreMap> annotatedBodySentences;
-    private final List<CoreMap> annotatedFooterSentences;
+    // expensive views are computed on first access
+    private final Lazy<Footer> footer = new Lazy<>(this::findFooter);
+    private final Lazy<String> bodyPlainTextWithoutFooter = new Lazy<>(this::createBodyPlainTextWithoutFooter);
+    private final Lazy<String> footerPlainText = new Lazy<>(this::createFooterPlainText);
+    private final Lazy<String> bodyContentPlainText = new Lazy<>(this::createBodyContentPlainText);
+    private final Lazy<String> plainText = new Lazy<>(this::createPlainText);
+    private final Lazy<List<String>> plainTextLines = new Lazy<>(this::createPlainTextLines);
+    private final Lazy<AnnotatedText> annotatedBody = new Lazy<>(this::annotateBody);
+    private final Lazy<AnnotatedText> annotatedFooter = new Lazy<>(this::annotateFooter);
+    private final Lazy<Element> bodyElementWithoutFooter = new Lazy<>(this::createBodyElementWithoutFooter);
 
+    // texts annotated on behalf of extractors, see getAnnotatedSentences(String, NlpProfile)
+    private final Map<String, AnnotatedText> annotatedTexts = new ConcurrentHashMap<>();
+
+    /**
+     * Constructs a job offer, its sentences will be annotated with all configured annotators.
+     *
+     * @param document Job offer document
+     */
     public JobOffer(Document document) {
+        this(document, NlpProfile.FULL);
+    }
+
+    /**
+     * Constructs a job offer, its sentences will be annotated with the annotators of the given profile. The footer
+     * search, the plain text and the annotations are computed on first access, so extractors only pay for the views
+     * they use.
+     *
+     * @param document   Job offer document
+     * @param nlpProfile Profile defining the annotations of body and footer sentences
+     */
+    public JobOffer(Document document, NlpProfile nlpProfile) {
         this.document = document;
+        this.nlpProfile = nlpProfile;
 
         bodyElement = this.document.body();
+    }
 
-        // keep footer separately and remove from body
-        bodyElementWithoutFooter = bodyElement.clone();
+    /**
+     * Finds the footer elements of the body. The body itself is left untouched, the footer elements are excluded from
+     * the views of the body without footer instead.
+     *
+     * @return Footer elements and merged footer element
+     */
+    private Footer findFooter() {
         Elements footers = new Elements();
-        extractToElementsList(footers, bodyElementWithoutFooter.getElementsByTag(FOOTER_TAG_NAME));
-        extractToElementList(footers, bodyElementWithoutFooter.getElementById(FOOTER_TAG_NAME));
-        extractToElementsList(footers, bodyElementWithoutFooter.getElementsByClass(FOOTER_TAG_NAME));
-        footerElement = mergeFooterElements(footers);
+        Set<Node> footerNodes = Collections.newSetFromMap(new IdentityHashMap<>());
+
+        // every search skips the elements within footers found by the previous searches
+        addFooterElements(footers, footerNodes, bodyElement.getElementsByTag(FOOTER_TAG_NAME));
+        for (Element element : bodyElement.select("#" + FOOTER_TAG_NAME)) {
+            if (!isInFooter(element, footerNodes)) {
+                addFooterElements(footers, footerNodes, new Elements(element));
+                break;
+            }
+        }
+        addFooterElements(footers, footerNodes, bodyElement.getElementsByClass(FOOTER_TAG_NAME));
+
+        return new Footer(footerNodes, mergeFooterElements(footers, footerNodes));
+    }
+
+    /**
+     * Extracts the plain text of the body without footer elements.
+     *
+     * @return Body plain text without footer
+     */
+    private String createBodyPlainTextWithoutFooter() {
+        return HtmlUtils.getPlainText(bodyElement, footer.get().footerNodes::contains);
+    }
 
+    /**
+     * Copies the body without footer elements.
+     *
+     * @return Copy of the body element without footer
+     */
+    private Element createBodyElementWithoutFooter() {
+        return HtmlUtils.getCopy(bodyElement, footer.get().footerNodes::contains);
+    }
+
+    /**
+     * Extracts the plain text of the body without footer and without boilerplate blocks like cookie banners and
+     * navigation menus, unless pruning is disabled by the configuration.
+     *
+     * @return Body plain text without footer and boilerplate
+     */
+    private String createBodyContentPlainText() {
+        if (!PRUNE_BOILERPLATE) {
+            return getBodyPlainTextWithoutFooter();
+        }
+
+        Set<Node> footerNodes = footer.get().footerNodes;
+        Set<Node> boilerplateNodes = BOILERPLATE_DETECTOR.findBoilerplate(bodyElement, footerNodes::contains);
+        if (boilerplateNodes.isEmpty()) {
+            return getBodyPlainTextWithoutFooter();
+        }
+
+        String contentPlainText = HtmlUtils.getPlainText(bodyElement, node -> footerNodes.contains(node) || boilerplateNodes.contains(node));
+        LOG.debug("Pruned " + boilerplateNodes.size() + " boilerplate blocks, " + contentPlainText.length() + " of "
+                + getBodyPlainTextWithoutFooter().length() + " characters left");
+        return contentPlainText;
+    }
+
+    /**
+     * Extracts the plain text of the footer.
+     *
+     * @return Footer plain text or null if the document has no footer
+     */
+    private String createFooterPlainText() {
+        Element footerElement = getFooterElement();
+        return footerElement != null ? HtmlUtils.getPlainText(footerElement) : null;
+    }
+
+    /**
+     * Annotates the sentences of the body without footer and boilerplate.
+     *
+     * @return Annotated body sentences
+     */
+    private AnnotatedText annotateBody() {
         LOG.debug("Annotating parsed job offer");
-        String bodyElementWithoutFooterPlainText = HtmlUtils.getPlainTextFromHtml(bodyElementWithoutFooter.html());
-        String bodySentences = StringUtils.extractSentencesFromPlaintText(bodyElementWithoutFooterPlainText);
-        annotatedBodySentences = NlpHelper.getInstance().getAnnotatedSentences(bodySentences);
-
-        if (footerElement != null) {
-            String footerElementWithoutFooterPlainText = HtmlUtils.getPlainTextFromHtml(footerElement.html());
-            String footerSentences = StringUtils.extractSentencesFromPlaintText(footerElementWithoutFooterPlainText);
-            annotatedFooterSentences = NlpHelper.getInstance().getAnnotatedSentences(footerSentences);
-        } else {
-            annotatedFooterSentences = null;
+        String bodySentences = StringUtils.extractSentencesFromPlaintText(getBodyContentPlainText());
+        return annotate(bodySentences, nlpProfile);
+    }
+
+    /**
+     * Annotates the sentences of the footer.
+     *
+     * @return Annotated footer sentences or null if the document has no footer
+     */
+    private AnnotatedText annotateFooter() {
+        String footerPlainText = getFooterPlainText();
+        if (footerPlainText == null) {
+            return null;
         }
 
-        plaintText = HtmlUtils.getPlainTextFromHtml(document.html());
+        String footerSentences = StringUtils.extractSentencesFromPlaintText(footerPlainText);
+        return annotate(footerSentences, nlpProfile);
+    }
+
+    /**
+     * Converts the whole document to plain text.
+     *
+     * @return Document plain text
+     */
+    private String createPlainText() {
+        return HtmlUtils.getPlainText(document);
+    }
 
-        plainTextLines = new ArrayList<>();
-        for (String line : plaintText.split("\n")) {
+    /**
+     * Splits the plain text into trimmed, non-empty lines.
+     *
+     * @return List of plain text lines
+     */
+    private List<String> createPlainTextLines() {
+        List<String> lines = new ArrayList<>();
+        for (String line : getPlainText().split("\n")) {
             line = line.trim();
             if (!line.isEmpty()) {
-                plainTextLines.add(line);
+                lines.add(line);
             }
         }
+        return lines;
     }
 
     /**
-     * Merges given footer elements to one single footer element.
+     * Annotates given text with the annotators of the given profile.
      *
-     * @param footers Footer elements to be merged
+     * @param text    Text to be annotated
+     * @param profile Profile defining the annotations
+     * @return Annotated text
+     */
+    private AnnotatedText annotate(String text, NlpProfile profile) {
+        return new AnnotatedText(text, profile, NlpHelper.getInstance().getAnnotatedSentences(text, profile));
+    }
+
+    /**
+     * Merges given footer elements to one single footer element. A single footer element is returned as it is, multiple
+     * footer elements are merged into a new element without the footer elements nested within them.
+     *
+     * @param footers     Footer elements to be merged
+     * @param footerNodes Footer elements to be left out of the merged element
      * @return Single merged footer element
      */
-    private Element mergeFooterElements(Elements footers) {
+    private Element mergeFooterElements(Elements footers, Set<Node> footerNodes) {
         if (footers.size() == 1) {
             return footers.first();
 
@@ -89,7 +235,7 @@ public class JobOffer {
             // merge multiple footer elements to a single element
             StringBuilder mergedFooterHtml = new StringBuilder("<div>");
             for (Element footer : footers) {
-                mergedFooterHtml.append(footer.html());
+                mergedFooterHtml.append(HtmlUtils.getHtml(footer, footerNodes::contains));
             }
             mergedFooterHtml.append("</div>");
             return Jsoup.parse(mergedFooterHtml.toString()).body().child(0);
@@ -97,29 +243,39 @@ public class JobOffer {
     }
 
     /**
-     * Removes given elements from body and adds them to the given elements object.
+     * Adds given elements to the footer elements, unless they are footer elements already or within one found by a
+     * previous search.
      *
-     * @param elementList       Elements object to add removed elements to
-     * @param elementsToExtract Elements to be removed and added to the elements object
+     * @param footers           Footer elements to add the elements to
+     * @param footerNodes       Footer elements by identity
+     * @param elementsToExtract Elements to be added to the footer elements
      */
-    private void extractToElementsList(Elements elementList, Elements elementsToExtract) {
+    private void addFooterElements(Elements footers, Set<Node> footerNodes, Elements elementsToExtract) {
+        // check against the footers found before, elements of this search are all added
+        Set<Node> previousFooterNodes = Collections.newSetFromMap(new IdentityHashMap<>());
+        previousFooterNodes.addAll(footerNodes);
         for (Element element : elementsToExtract) {
-            extractToElementList(elementList, element);
+            if (!isInFooter(element, previousFooterNodes)) {
+                footers.add(element);
+                footerNodes.add(element);
+            }
         }
-
     }
 
     /**
-     * Removes given element from body and adds it to the given elements object.
+     * Checks whether given node is one of given footer elements or within one.
      *
-     * @param elementList      Elements object to add removed element to
-     * @param elementToExtract Element to be removed and added to the elements object
+     * @param node        Node to be checked
+     * @param footerNodes Footer elements by identity
+     * @return <code>true</code> if the node is part of a footer, <code>false</code> otherwise
      */
-    private void extractToElementList(Elements elementList, Element elementToExtract) {
-        if (elementToExtract != null && !elementList.contains(elementToExtract)) {
-            elementList.add(elementToExtract);
-            elementToExtract.remove();
+    private static boolean isInFooter(Node node, Set<Node> footerNodes) {
+        for (Node current = node; current != null; current = current.parent()) {
+            if (footerNodes.contains(current)) {
+                return true;
+            }
         }
+        return false;
     }
 
     /**
@@ -141,21 +297,64 @@ public class JobOffer {
     }
 
     /**
-     * Returns body element of the job offer document without footer element.
+     * Returns body element of the job offer document without footer elements.
      *
-     * @return Body element without footer element
+     * @return Copy of the body element without footer, created on first access
+     * @deprecated Copies the body, use the views {@link #getBodyPlainTextWithoutFooter()} and
+     * {@link #isInFooter(Node)} instead
      */
+    @Deprecated
     public Element getBodyElementWithoutFooter() {
-        return bodyElementWithoutFooter;
+        return bodyElementWithoutFooter.get();
+    }
+
+    /**
+     * Returns the plain text of the body element without footer elements.
+     *
+     * @return Body plain text without footer
+     */
+    public String getBodyPlainTextWithoutFooter() {
+        return bodyPlainTextWithoutFooter.get();
+    }
+
+    /**
+     * Returns the plain text of the body element without footer elements and boilerplate blocks like cookie banners,
+     * navigation menus and link lists. This is the text of the annotated body sentences.
+     *
+     * @return Body plain text without footer and boilerplate
+     */
+    public String getBodyContentPlainText() {
+        return bodyContentPlainText.get();
     }
 
     /**
-     * Returns footer element of the job offer document.
+     * Checks whether given node of the document is a footer element or within one. The body element without footer
+     * consists of all body nodes for which this method returns <code>false</code>.
      *
-     * @return Footer element
+     * @param node Node of the document
+     * @return <code>true</code> if the node is part of a footer, <code>false</code> otherwise
+     */
+    public boolean isInFooter(Node node) {
+        return isInFooter(node, footer.get().footerNodes);
+    }
+
+    /**
+     * Returns footer element of the job offer document. A single footer element is part of the document, multiple
+     * footer elements are merged into a separate element. The element must not be modified.
+     *
+     * @return Footer element or null if the document has no footer
      */
     public Element getFooterElement() {
-        return footerElement;
+        return footer.get().footerElement;
+    }
+
+    /**
+     * Returns the plain text of the footer element.
+     *
+     * @return Footer plain text or null if the document has no footer
+     */
+    public String getFooterPlainText() {
+        return footerPlainText.get();
     }
 
     /**
@@ -164,7 +363,7 @@ public class JobOffer {
      * @return Document plain text
      */
     public String getPlainText() {
-        return plaintText;
+        return plainText.get();
     }
 
     /**
@@ -173,16 +372,16 @@ public class JobOffer {
      * @return List of plain text lines
      */
     public List<String> getPlainTextLines() {
-        return plainTextLines;
+        return plainTextLines.get();
     }
 
     /**
-     * Returns annotated sentences of the body element.
+     * Returns annotated sentences of the body element without footer and boilerplate.
      *
      * @return Annotated body sentences
      */
     public List<CoreMap> getAnnotatedBodySentences() {
-        return annotatedBodySentences;
+        return annotatedBody.get().getSentences();
     }
 
     /**
@@ -191,6 +390,72 @@ public class JobOffer {
      * @return Annotated footer sentences
      */
     public List<CoreMap> getAnnotatedFooterSentences() {
-        return annotatedFooterSentences;
+        AnnotatedText footer = annotatedFooter.get();
+        return footer != null ? footer.getSentences() : null;
+    }
+
+    /**
+     * Returns annotated body text, which allows looking up the annotations of spans of the body sentences.
+     *
+     * @return Annotated body text
+     */
+    public AnnotatedText getAnnotatedBody() {
+        return annotatedBody.get();
+    }
+
+    /**
+     * Returns annotated footer text, which allows looking up the annotations of spans of the footer sentences.
+     *
+     * @return Annotated footer text or null if the document has no footer
+     */
+    public AnnotatedText getAnnotatedFooter() {
+        return annotatedFooter.get();
+    }
+
+    /**
+     * Returns the annotated sentences of any text of this job offer, e.g. a line of the plain text. Every text is
+     * annotated at most once per profile and job offer: texts consisting of complete body or footer sentences reuse
+     * their annotations if these have been computed already, other texts are annotated with the profile of the caller
+     * and kept for later calls. A kept text is only annotated again if a later caller needs a larger profile.
+     *
+     * @param text    Text to be annotated
+     * @param profile Profile defining the annotations needed by the caller
+     * @return Annotated sentences of the text
+     */
+    public List<CoreMap> getAnnotatedSentences(String text, NlpProfile profile) {
+        AnnotatedText annotatedText = annotatedTexts.get(text);
+        if (annotatedText != null && annotatedText.getProfile().includes(profile)) {
+            return annotatedText.getSentences();
+        }
+
+        for (Lazy<AnnotatedText> lazySection : Arrays.asList(annotatedBody, annotatedFooter)) {
+            // never annotate body or footer just to look up a text
+            AnnotatedText annotatedSection = lazySection.isInitialized() ? lazySection.get() : null;
+            if (annotatedSection != null && annotatedSection.getProfile().includes(profile)) {
+                List<CoreMap> sentences = annotatedSection.findSentences(text);
+                if (sentences != null) {
+                    return sentences;
+                }
+            }
+        }
+
+        annotatedText = annotate(text, profile);
+        // keep the larger profile if another caller has annotated the text concurrently
+        annotatedTexts.merge(text, annotatedText, (previous, current) ->
+                previous.getProfile().includes(current.getProfile()) ? previous : current);
+        return annotatedText.getSentences();
+    }
+
+    /**
+     * Footer elements found in the body of the job offer document and the footer element merged from them.
+     */
+    private static class Footer {
+        private final Set<Node> footerNodes;
+        private final Element footerElement;
+
+        private Footer(Set<Node> footerNodes, Element footerElement) {
+            this.footerNodes = footerNodes;
+            this.footerElement = footerElement;
+        }
     }
 }
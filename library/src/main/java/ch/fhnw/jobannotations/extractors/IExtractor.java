@@ -1,6 +1,7 @@
 package ch.fhnw.jobannotations.extractors;
 
 import ch.fhnw.jobannotations.domain.JobOffer;
+import ch.fhnw.jobannotations.utils.NlpProfile;
 
 /**
  * Interface to be implemented by extractors of job offer information.
@@ -24,4 +25,16 @@ public interface IExtractor {
      */
     void learn(String data);
 
+    /**
+     * Returns the annotations this extractor reads from the annotated sentences of the job offer. The job offer is only
+     * annotated with the smallest profile that satisfies all extractors.
+     *
+     * @return Required NLP profile
+     * @see JobOffer#getAnnotatedBodySentences()
+     * @see JobOffer#getAnnotatedFooterSentences()
+     */
+    default NlpProfile getRequiredNlpProfile() {
+        return NlpProfile.FULL;
+    }
+
 }
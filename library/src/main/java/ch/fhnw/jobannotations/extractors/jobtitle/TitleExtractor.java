@@ -4,17 +4,21 @@ import ch.fhnw.jobannotations.domain.JobOffer;
 import ch.fhnw.jobannotations.extractors.IExtractor;
 import ch.fhnw.jobannotations.utils.ConfigurationUtil;
 import ch.fhnw.jobannotations.utils.FileUtils;
+import ch.fhnw.jobannotations.utils.HtmlUtils;
 import ch.fhnw.jobannotations.utils.IntStringPair;
 import ch.fhnw.jobannotations.utils.NlpHelper;
+import ch.fhnw.jobannotations.utils.NlpProfile;
+import ch.fhnw.jobannotations.utils.PatternRegistry;
 import com.aliasi.dict.TrieDictionary;
 import org.apache.log4j.Logger;
 import org.jsoup.Jsoup;
-import org.jsoup.nodes.Document;
+import org.jsoup.nodes.Element;
+import org.jsoup.nodes.Node;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 /**
  * This class is responsible to identify potential job titles in a job offer document. To prevent false results and to
@@ -34,17 +38,11 @@ public class TitleExtractor implements IExtractor {
     @Override
     public String parse(JobOffer jobOffer) {
 
-        Document document = jobOffer.getDocument().clone();
-
         LOG.debug("Started to parse job title from offer");
 
-        // remove irrelevant tags
-        for (String irrelevantTag : TitleExtractorConstants.IRRELEVANT_TAGS) {
-            document.getElementsByTag(irrelevantTag).remove();
-        }
-
-        String html = document.html();
-        String[] htmlLines = html.split("\\n");
+        // serialise the document without irrelevant tags, instead of removing them from a copy
+        String html = HtmlUtils.getHtml(jobOffer.getDocument(), TitleExtractor::isIrrelevantElement);
+        String[] htmlLines = PatternRegistry.LINE_BREAK.split(html);
 
         // extract rated strings
         List<IntStringPair> ratedStrings = extractRatedStringsFromHtml(htmlLines);
@@ -53,12 +51,12 @@ public class TitleExtractor implements IExtractor {
         adjustRatingsByJobTitleIndicator(ratedStrings);
 
         // clean all entries and remove entries with empty strings
-        Pattern patternSpecialChars = Pattern.compile(TitleExtractorConstants.REGEX_SPECIAL_CHARS_TO_REMOVE);
+        Matcher matcher = TitleExtractorConstants.PATTERN_SPECIAL_CHARS_TO_REMOVE.matcher("");
         for (int i = ratedStrings.size() - 1; i > -1; i--) {
             // remove special characters
             IntStringPair ratedString = ratedStrings.get(i);
             String string = ratedString.getString();
-            Matcher matcher = patternSpecialChars.matcher(string);
+            matcher.reset(string);
             while (matcher.find()) {
                 string = string.replace(matcher.group(), "");
             }
@@ -119,6 +117,12 @@ public class TitleExtractor implements IExtractor {
     @Override
     public void learn(String data) {
         FileUtils.addDataToTrainFile(ConfigurationUtil.get("extraction.titles.train"), data);
+        NlpHelper.getInstance().learnTitle(data);
+    }
+
+    @Override
+    public NlpProfile getRequiredNlpProfile() {
+        return NlpProfile.POS;
     }
 
     /**
@@ -130,20 +134,26 @@ public class TitleExtractor implements IExtractor {
     private List<IntStringPair> extractRatedStringsFromHtml(String[] htmlLines) {
         List<IntStringPair> extractedRatedStrings = new ArrayList<>();
 
+        // one matcher per tag, reused for all lines
+        IntStringPair[] tagRatings = TitleExtractorConstants.RATINGS_HIGH_PRIORITY_TAG;
+        Matcher[] tagMatchers = new Matcher[tagRatings.length];
+        for (int i = 0; i < tagRatings.length; i++) {
+            tagMatchers[i] = TitleExtractorConstants.PATTERNS_HIGH_PRIORITY_TAG[i].matcher("");
+        }
+        Matcher tagMatcher = TitleExtractorConstants.PATTERN_TAG.matcher("");
+
         for (String htmlLine : htmlLines) {
             // extract all important tags
             String addedImportantTagContent = null;
-            for (IntStringPair tagRating : TitleExtractorConstants.RATINGS_HIGH_PRIORITY_TAG) {
-                String tagName = tagRating.getString();
-                String regex = String.format(TitleExtractorConstants.REGEX_FORMAT_TAG, tagName, tagName);
-                Pattern pattern = Pattern.compile(regex);
-                Matcher matcher = pattern.matcher(htmlLine);
+            for (int i = 0; i < tagRatings.length; i++) {
+                IntStringPair tagRating = tagRatings[i];
+                Matcher matcher = tagMatchers[i].reset(htmlLine);
 
                 while (matcher.find()) {
                     String matchedString = matcher.group();
 
                     // remove all html tags
-                    matchedString = matchedString.replaceAll(TitleExtractorConstants.REGEX_TAG, "").trim();
+                    matchedString = tagMatcher.reset(matchedString).replaceAll("").trim();
 
                     if (!matchedString.isEmpty()) {
                         // use Jsoup to convert html special to normal chars (eg.: &amp; => &)
@@ -160,7 +170,7 @@ public class TitleExtractor implements IExtractor {
             }
 
             // remove all remaining html tags
-            htmlLine = htmlLine.replaceAll(TitleExtractorConstants.REGEX_TAG, "").trim();
+            htmlLine = tagMatcher.reset(htmlLine).replaceAll("").trim();
 
             // use Jsoup to convert html special to normal chars (eg.: &amp; => &)
             htmlLine = Jsoup.parse(Jsoup.parse(htmlLine).text()).text();
@@ -182,15 +192,21 @@ public class TitleExtractor implements IExtractor {
      * @param ratedStrings List of job titles to be rated
      */
     private void adjustRatingsByJobTitleIndicator(List<IntStringPair> ratedStrings) {
+        // one matcher per indicator, reused for all strings
+        IntStringPair[] indicatorRatings = TitleExtractorConstants.JOB_TITLE_INDICATOR_REGEX_LIST;
+        Matcher[] indicatorMatchers = new Matcher[indicatorRatings.length];
+        for (int i = 0; i < indicatorRatings.length; i++) {
+            indicatorMatchers[i] = TitleExtractorConstants.PATTERNS_JOB_TITLE_INDICATOR[i].matcher("");
+        }
+
         for (IntStringPair ratedString : ratedStrings) {
 
             int jobTitleRating = 0;
             String string = ratedString.getString();
 
-            for (IntStringPair jobTitleIndicatorRating : TitleExtractorConstants.JOB_TITLE_INDICATOR_REGEX_LIST) {
-                String jobTitleIndicatorRegex = jobTitleIndicatorRating.getString();
-                Pattern pattern = Pattern.compile(jobTitleIndicatorRegex);
-                Matcher matcher = pattern.matcher(string);
+            for (int i = 0; i < indicatorRatings.length; i++) {
+                IntStringPair jobTitleIndicatorRating = indicatorRatings[i];
+                Matcher matcher = indicatorMatchers[i].reset(string);
                 while (matcher.find()) {
                     String matchedString = matcher.group();
 
@@ -226,10 +242,10 @@ public class TitleExtractor implements IExtractor {
      * @param ratedStrings List of job titles to be rated
      */
     private void adjustRatingsBySpecialCharCount(List<IntStringPair> ratedStrings) {
+        Matcher matcher = TitleExtractorConstants.PATTERN_SPECIAL_CHARS.matcher("");
         for (IntStringPair ratedString : ratedStrings) {
             String text = ratedString.getString();
-            Pattern pattern = Pattern.compile(TitleExtractorConstants.REGEX_SPECIAL_CHARS);
-            Matcher matcher = pattern.matcher(text);
+            matcher.reset(text);
 
             // remove special chars
             while (matcher.find()) {
@@ -294,13 +310,35 @@ public class TitleExtractor implements IExtractor {
     private void adjustRatingsByKnownJobTitleList(List<IntStringPair> ratedStrings) {
         TrieDictionary<String> titlesDictionary = NlpHelper.getInstance().getTitlesDictionary();
 
+        // look up all job titles at once
+        List<String> texts = new ArrayList<>();
         for (IntStringPair ratedString : ratedStrings) {
-            String text = ratedString.getString();
+            texts.add(ratedString.getString());
+        }
+        Map<String, IntStringPair> titleDistances = NlpHelper.getInstance().calcDistancesWithDictionary(titlesDictionary, texts, 1);
 
-            IntStringPair titleDistance = NlpHelper.getInstance().calcDistanceWithDictionary(titlesDictionary, text, 1);
+        for (IntStringPair ratedString : ratedStrings) {
+            IntStringPair titleDistance = titleDistances.get(ratedString.getString());
             if (titleDistance != null && titleDistance.getInt() == NlpHelper.DICTIONARY_DISTANCE_MIN_VALUE) {
                 ratedString.setInt(ratedString.getInt() + TitleExtractorConstants.RATING_DICTIONARY_MATCH);
             }
         }
     }
+
+    /**
+     * Checks whether given node is an element with a tag irrelevant for job titles.
+     *
+     * @param node Node to be checked
+     * @return <code>true</code> if the node is skipped together with its descendants, <code>false</code> otherwise
+     */
+    private static boolean isIrrelevantElement(Node node) {
+        if (node instanceof Element) {
+            for (String irrelevantTag : TitleExtractorConstants.IRRELEVANT_TAGS) {
+                if (((Element) node).tagName().equalsIgnoreCase(irrelevantTag)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
 }
@@ -3,6 +3,8 @@ package ch.fhnw.jobannotations.extractors.jobtitle;
 import ch.fhnw.jobannotations.extractors.workload.WorkloadExtractor;
 import ch.fhnw.jobannotations.utils.IntStringPair;
 
+import java.util.regex.Pattern;
+
 /**
  * This class holds constants that are used in {@link TitleExtractor}
  *
@@ -10,7 +12,7 @@ import ch.fhnw.jobannotations.utils.IntStringPair;
  */
 class TitleExtractorConstants {
 
-    static final String REGEX_SPECIAL_CHARS_TO_REMOVE = "[$+,:;=?@#<>.^*%!-\"]";
+    static final Pattern PATTERN_SPECIAL_CHARS_TO_REMOVE = Pattern.compile("[$+,:;=?@#<>.^*%!-\"]");
     static final String[] IRRELEVANT_TAGS = {"style", "script", "meta", "link", "a", "input", "button"};
 
     static final int LOW_RATING_THRESHOLD = 10;
@@ -40,8 +42,13 @@ class TitleExtractorConstants {
     };
 
     // html parsing
-    static final String REGEX_FORMAT_TAG = "<%s[^>]*>.*<\\/%s>";
-    static final String REGEX_TAG = "<[^>]+>";
+    private static final String REGEX_FORMAT_TAG = "<%s[^>]*>.*<\\/%s>";
+    static final Pattern PATTERN_TAG = Pattern.compile("<[^>]+>");
+
+    /**
+     * Patterns of the high priority tags, in the order of {@link #RATINGS_HIGH_PRIORITY_TAG}
+     */
+    static final Pattern[] PATTERNS_HIGH_PRIORITY_TAG = compileTagPatterns(RATINGS_HIGH_PRIORITY_TAG);
 
     // job title indicator
     private static final String REGEX_GENDER_TEXT = "\\s?[wmfWMF]\\s?\\/\\s?[wmfWMF]\\s?";
@@ -60,10 +67,32 @@ class TitleExtractorConstants {
             new IntStringPair(1, REGEX_WORKLOAD_INDICATOR)
     };
 
+    /**
+     * Patterns of the job title indicators, in the order of {@link #JOB_TITLE_INDICATOR_REGEX_LIST}
+     */
+    static final Pattern[] PATTERNS_JOB_TITLE_INDICATOR = compilePatterns(JOB_TITLE_INDICATOR_REGEX_LIST);
+
     // special char count
-    static final String REGEX_SPECIAL_CHARS = "[^a-zA-Z]+";
+    static final Pattern PATTERN_SPECIAL_CHARS = Pattern.compile("[^a-zA-Z]+");
     static final double THRESHOLD_RATING_SPECIAL_CHARS = 0.5;
 
     // text length
     static final int THRESHOLD_TEXT_TOO_LONG = 75;
+
+    private static Pattern[] compileTagPatterns(IntStringPair[] tagRatings) {
+        Pattern[] patterns = new Pattern[tagRatings.length];
+        for (int i = 0; i < tagRatings.length; i++) {
+            String tagName = tagRatings[i].getString();
+            patterns[i] = Pattern.compile(String.format(REGEX_FORMAT_TAG, tagName, tagName));
+        }
+        return patterns;
+    }
+
+    private static Pattern[] compilePatterns(IntStringPair[] regexRatings) {
+        Pattern[] patterns = new Pattern[regexRatings.length];
+        for (int i = 0; i < regexRatings.length; i++) {
+            patterns[i] = Pattern.compile(regexRatings[i].getString());
+        }
+        return patterns;
+    }
 }
@@ -3,8 +3,8 @@ package ch.fhnw.jobannotations.extractors.language;
 import ch.fhnw.jobannotations.domain.JobOffer;
 import ch.fhnw.jobannotations.extractors.IExtractor;
 import ch.fhnw.jobannotations.utils.ConfigurationUtil;
-import ch.fhnw.jobannotations.utils.FileUtils;
-import ch.fhnw.jobannotations.utils.NlpHelper;
+import ch.fhnw.jobannotations.utils.DictionaryRegistry;
+import ch.fhnw.jobannotations.utils.NlpProfile;
 import edu.stanford.nlp.ling.IndexedWord;
 import edu.stanford.nlp.semgraph.SemanticGraph;
 import edu.stanford.nlp.semgraph.SemanticGraphCoreAnnotations;
@@ -40,7 +40,7 @@ public class LanguageExtractor implements IExtractor {
         // get the visible text from document
         List<String> lines = jobOffer.getPlainTextLines();
 
-        Map<String, String> fuzzySearchCandidates = getKnownLanguagesCandidates(lines);
+        Map<String, String> fuzzySearchCandidates = getKnownLanguagesCandidates(jobOffer, lines);
 
         // return comma separated list
         String result = "";
@@ -66,15 +66,16 @@ public class LanguageExtractor implements IExtractor {
     /**
      * Find known languages in job offer and determine it's levels.
      *
+     * @param jobOffer to annotate lines with
      * @param lines of the job offer
      * @return candidates which were found
      */
-    private Map<String, String> getKnownLanguagesCandidates(List<String> lines) {
+    private Map<String, String> getKnownLanguagesCandidates(JobOffer jobOffer, List<String> lines) {
 
         Map<String, String> candidates = new HashMap<>();
 
-        // load known languages from model as list
-        List<String> languages = FileUtils.getFileContentAsList(ConfigurationUtil.get("extraction.languages.train"));
+        // get known languages from model, the file is only read again when it changes
+        List<String> languages = DictionaryRegistry.getInstance().getEntries(ConfigurationUtil.get("extraction.languages.train"));
 
         for (String language : languages) {
 
@@ -83,7 +84,7 @@ public class LanguageExtractor implements IExtractor {
                 if (sentence.toLowerCase().contains(language.toLowerCase())) {
 
                     // annotate sentence
-                    CoreMap annotatedSentence = NlpHelper.getInstance().getAnnotatedSentences(sentence).get(0);
+                    CoreMap annotatedSentence = jobOffer.getAnnotatedSentences(sentence, NlpProfile.FULL).get(0);
 
                     // load dependency graph from annotated sentence
                     SemanticGraph dependencies = annotatedSentence.get(SemanticGraphCoreAnnotations.CollapsedCCProcessedDependenciesAnnotation.class);
@@ -132,4 +133,9 @@ public class LanguageExtractor implements IExtractor {
         // NOP - makes currently no sense
     }
 
+    @Override
+    public NlpProfile getRequiredNlpProfile() {
+        return NlpProfile.POS;
+    }
+
 }
@@ -14,6 +14,7 @@ import org.json.JSONArray;
 import org.json.JSONObject;
 import org.jsoup.Jsoup;
 import org.jsoup.nodes.Element;
+import org.jsoup.nodes.Node;
 import org.jsoup.safety.Whitelist;
 import org.jsoup.select.Elements;
 
@@ -28,8 +29,8 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Comparator;
 import java.util.List;
+import java.util.function.Predicate;
 import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 /**
  * This class is responsible to identify potential locations in a job offer document. To prevent false results and
@@ -52,6 +53,13 @@ public class LocationExtractor implements IExtractor {
     @Override
     public void learn(String data) {
         FileUtils.addDataToTrainFile(ConfigurationUtil.get("extraction.locations.train"), data);
+        NlpHelper.getInstance().learnLocation(data);
+    }
+
+    @Override
+    public NlpProfile getRequiredNlpProfile() {
+        // named entities are used to find locations
+        return NlpProfile.NER;
     }
 
     /**
@@ -83,15 +91,17 @@ public class LocationExtractor implements IExtractor {
         List<IntStringPair> ratedJobLocations = new ArrayList<>();
         int ratingAdjustment = isFooter ? LocationExtractorConstants.RATING_ELEMENT_IN_FOOTER : 0;
 
-        Element element = isFooter ? jobOffer.getFooterElement() : jobOffer.getBodyElementWithoutFooter();
+        // the body is searched without copying it, footer nodes are excluded instead
+        Element element = isFooter ? jobOffer.getFooterElement() : jobOffer.getBodyElement();
+        Predicate<Node> exclusion = isFooter ? node -> false : jobOffer::isInFooter;
 
         if (element == null) {
             return ratedJobLocations;
         }
 
-        String plainText = HtmlUtils.getPlainTextFromHtml(element.html());
+        String plainText = isFooter ? jobOffer.getFooterPlainText() : jobOffer.getBodyPlainTextWithoutFooter();
 
-        for (String potentialJobLocation : getPotentialJobLocationByLocationFlags(element, plainText)) {
+        for (String potentialJobLocation : getPotentialJobLocationByLocationFlags(element, exclusion, plainText)) {
             IntStringPair ratedJobLocation = new IntStringPair(LocationExtractorConstants.RATING_LOCATION_BY_LOCATION_FLAGS + ratingAdjustment, potentialJobLocation);
             ratedJobLocations.add(ratedJobLocation);
             LOG.debug("Found location by location flags: " + potentialJobLocation);
@@ -152,27 +162,31 @@ public class LocationExtractor implements IExtractor {
      * text.
      *
      * @param bodyElement Body element to analyse
+     * @param exclusion   Matches the nodes of the body element which are not analysed
      * @param plainText   Plain text to analyse
      * @return Extracted locations
      */
-    private List<String> getPotentialJobLocationByLocationFlags(Element bodyElement, String plainText) {
+    private List<String> getPotentialJobLocationByLocationFlags(Element bodyElement, Predicate<Node> exclusion, String plainText) {
         List<String> potentialJobLocations = new ArrayList<>();
+        Matcher parenthesesMatcher = PatternRegistry.PARENTHESES.matcher("");
 
         for (String locationFlag : LocationExtractorConstants.LOCATION_FLAGS) {
             // get elements with relevant attributes values containing a location flag
             for (String attribute : LocationExtractorConstants.RELEVANT_LOCATION_HTML_ATTRIBUTES) {
                 Elements potentialElements = bodyElement.getElementsByAttributeValueContaining(attribute, locationFlag);
-                potentialJobLocations.addAll(addPotentialJobLocationToList(potentialElements));
+                potentialElements.removeIf(exclusion);
+                potentialJobLocations.addAll(addPotentialJobLocationToList(bodyElement, exclusion, potentialElements));
             }
 
             // by text
-            Matcher locationMatcher = Pattern.compile("(?i)\\W" + locationFlag + "\\W[.\\s]*:?[.\\s]*(.*)\\n").matcher(plainText);
+            String locationRegex = String.format(LocationExtractorConstants.REGEX_FORMAT_LOCATION_FLAG, locationFlag);
+            Matcher locationMatcher = PatternRegistry.matcher(locationRegex, plainText);
             while (locationMatcher.find()) {
                 String match = locationMatcher.group(1);
                 potentialJobLocations.add(match);
 
                 // check for words in parentheses
-                Matcher parenthesesMatcher = Pattern.compile("\\(.*\\)").matcher(match);
+                parenthesesMatcher.reset(match);
                 while (parenthesesMatcher.find()) {
                     String cleaned = match.replace(parenthesesMatcher.group(), "");
                     potentialJobLocations.add(cleaned);
@@ -212,7 +226,7 @@ public class LocationExtractor implements IExtractor {
      */
     private List<String> getPotentialJobLocationByZipCode(String plainText) {
         List<String> potentialLocations = new ArrayList<>();
-        Matcher zipCodeMatcher = Pattern.compile(LocationExtractorConstants.REGEX_ZIP_CODE).matcher(plainText);
+        Matcher zipCodeMatcher = LocationExtractorConstants.PATTERN_ZIP_CODE.matcher(plainText);
         while (zipCodeMatcher.find()) {
             potentialLocations.add(zipCodeMatcher.group(1));
         }
@@ -319,7 +333,7 @@ public class LocationExtractor implements IExtractor {
             for (int i = 0; i < previousListSize; i++) {
                 IntStringPair ratedLocation = ratedJobLocations.get(i);
                 String location = ratedLocation.getString();
-                Matcher wordMatcher = Pattern.compile("\\w+").matcher(location);
+                Matcher wordMatcher = PatternRegistry.WORD.matcher(location);
                 while (wordMatcher.find()) {
                     String partialLocationName = wordMatcher.group();
                     if (partialLocationName.length() > 1 && Character.isUpperCase(partialLocationName.charAt(0))) {
@@ -396,7 +410,7 @@ public class LocationExtractor implements IExtractor {
      */
     private int calculateValidationRating(String originalLocationName, String validatedLocationName) {
         // remove text in parentheses for better rating calculation
-        validatedLocationName = validatedLocationName.replaceAll("\\s*\\(.*\\)\\s*", "");
+        validatedLocationName = LocationExtractorConstants.PATTERN_PARENTHESES_WITH_WHITESPACE.matcher(validatedLocationName).replaceAll("");
 
         int rating = FuzzySearch.ratio(originalLocationName, validatedLocationName);
         rating -= 50;
@@ -499,23 +513,29 @@ public class LocationExtractor implements IExtractor {
      * Creates List of potential locations and returns it. Returns an empty List if the given Elements contains
      * irrelevant tags.
      *
+     * @param bodyElement       Analysed body element
+     * @param exclusion         Matches the nodes of the body element which are not analysed
      * @param potentialElements Elements object containing the potential locations
      */
-    private List<String> addPotentialJobLocationToList(Elements potentialElements) {
+    private List<String> addPotentialJobLocationToList(Element bodyElement, Predicate<Node> exclusion, Elements potentialElements) {
         List<String> potentialJobLocations = new ArrayList<>();
         for (Element element : potentialElements) {
             String tagName = element.tagName();
             if (Arrays.asList(LocationExtractorConstants.IRRELEVANT_TAGS).contains(tagName)) {
                 return new ArrayList<>();
             }
-            String text = element.text();
+            String text = HtmlUtils.getText(element, exclusion);
             for (String textParts : text.split(":")) {
                 textParts = textParts.trim();
                 if (!textParts.isEmpty()) {
                     potentialJobLocations.add(textParts);
                 }
             }
-            text = element.parent().text();
+            if (element == bodyElement) {
+                // the parent is not part of the analysed element
+                continue;
+            }
+            text = HtmlUtils.getText(element.parent(), exclusion);
             for (String textParts : text.split(":")) {
                 textParts = textParts.trim();
                 if (!textParts.isEmpty()) {
@@ -1,5 +1,7 @@
 package ch.fhnw.jobannotations.extractors.location;
 
+import java.util.regex.Pattern;
+
 /**
  * This class holds constants that are used in {@link LocationExtractor}
  *
@@ -7,7 +9,9 @@ package ch.fhnw.jobannotations.extractors.location;
  */
 class LocationExtractorConstants {
 
-    static final String REGEX_ZIP_CODE = "\\d{4,5}\\s(.{2,})\\W";
+    static final Pattern PATTERN_ZIP_CODE = Pattern.compile("\\d{4,5}\\s(.{2,})\\W");
+    static final String REGEX_FORMAT_LOCATION_FLAG = "(?i)\\W%s\\W[.\\s]*:?[.\\s]*(.*)\\n";
+    static final Pattern PATTERN_PARENTHESES_WITH_WHITESPACE = Pattern.compile("\\s*\\(.*\\)\\s*");
     static final String GEO_ADMIN_API_URL_TEMPLATE = "https://api3.geo.admin.ch/rest/services/api/SearchServer?type=locations&limit=1&searchText=%s";
     static final String[] ALLOWED_SPECIAL_LABELS_GEO_ADMIN_API = {"Ort", "Quartier", "Zug", "Bus"};
     static final int MAX_WORDS_IN_LOCATION_NAME = 10;
@@ -6,8 +6,6 @@ import ch.fhnw.jobannotations.utils.*;
 import com.aliasi.dict.TrieDictionary;
 import edu.stanford.nlp.ling.CoreAnnotations;
 import edu.stanford.nlp.ling.CoreLabel;
-import edu.stanford.nlp.pipeline.Annotation;
-import edu.stanford.nlp.pipeline.StanfordCoreNLP;
 import edu.stanford.nlp.util.CoreMap;
 import org.apache.log4j.Logger;
 import org.jsoup.nodes.Element;
@@ -17,7 +15,6 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 /**
  * This class is responsible to identify potential organisation names in a job offer document. To prevent false results
@@ -67,7 +64,7 @@ public class OrganisationExtractor implements IExtractor {
         // annotate sentences
         List<CoreMap> annotatedSentences = new ArrayList<>();
         for (String line : jobOffer.getPlainTextLines()) {
-            annotatedSentences.addAll(NlpHelper.getInstance().getAnnotatedSentences(line));
+            annotatedSentences.addAll(jobOffer.getAnnotatedSentences(line, NlpProfile.POS));
         }
 
         // get text from all tags
@@ -144,7 +141,7 @@ public class OrganisationExtractor implements IExtractor {
         // ---------------------------------------------------------
         // (3) analyse fuzzy and ner for cross results
         // ---------------------------------------------------------
-        LOG.debug("Need to look for NER - WARNING: this may take a while...");
+        LOG.debug("Need to look for NER");
 
         List<String> merged = new ArrayList<>();
 
@@ -152,7 +149,7 @@ public class OrganisationExtractor implements IExtractor {
         fuzzySearchCandidates.entrySet().stream().forEach(t -> merged.add(t.getKey()));
 
         // add all ner tags found
-        merged.addAll(getNerCandidates(text));
+        merged.addAll(getNerCandidates(jobOffer));
 
         // search for similarities
         Map<String, Integer> weighted = new HashMap<>();
@@ -184,6 +181,12 @@ public class OrganisationExtractor implements IExtractor {
         }
     }
 
+    @Override
+    public NlpProfile getRequiredNlpProfile() {
+        // NER tags of body and footer sentences are needed for the fallback analysis
+        return NlpProfile.NER;
+    }
+
     /**
      * Save found organisations into train file
      *
@@ -192,6 +195,7 @@ public class OrganisationExtractor implements IExtractor {
     @Override
     public void learn(String data) {
         FileUtils.addDataToTrainFile(ConfigurationUtil.get("extraction.organisations.train"), data);
+        NlpHelper.getInstance().learnOrganisation(data);
     }
 
     /**
@@ -204,6 +208,7 @@ public class OrganisationExtractor implements IExtractor {
     private List<String> getLegalFormCandidates(List<CoreMap> annotatedSentences) {
 
         List<String> candidates = new ArrayList<>();
+        Matcher specialCharMatcher = StringUtils.PATTERN_SPECIAL_CHARS.matcher("");
 
         for (CoreMap annotatedSentence : annotatedSentences) {
             String sentence = annotatedSentence.get(CoreAnnotations.TextAnnotation.class);
@@ -227,9 +232,7 @@ public class OrganisationExtractor implements IExtractor {
                             boolean addToOrganisationName = (posTag.equals(NlpHelper.POS_TAG_COMMON_NOUN) || posTag.equals(NlpHelper.POS_TAG_PROPER_NOUN));
                             if (addToOrganisationName) {
                                 // make sure word does not contain special chars
-                                Pattern p = Pattern.compile(StringUtils.SPECIAL_CHARS);
-                                Matcher m = p.matcher(word);
-                                addToOrganisationName = !m.find();
+                                addToOrganisationName = !specialCharMatcher.reset(word).find();
                             }
 
                             if (addToOrganisationName) {
@@ -282,7 +285,7 @@ public class OrganisationExtractor implements IExtractor {
     private Map<String, Integer> getFuzzySearchCandidates(String text) {
 
         // get chunks for known organisation names which may be recognized within the text
-        TrieDictionary knownCompanies = PartOfSpeechUtil.getTrieDictionaryByFile(ConfigurationUtil.get("extraction.organisations.train"), "ORG");
+        TrieDictionary<String> knownCompanies = NlpHelper.getInstance().getOrganisationsDictionary();
         Map<String, Integer> foundChunks = PartOfSpeechUtil.getChunksByDictionary(knownCompanies, text, 1);
 
         // return found chunks as simple List<String>
@@ -297,26 +300,47 @@ public class OrganisationExtractor implements IExtractor {
     }
 
     /**
-     * Analyses given text with CoreNLP NER (named entity recognition)
-     * and tries to identify probable organisation names.
+     * Analyses the job offer with CoreNLP NER (named entity recognition)
+     * and tries to identify probable organisation names. The NER tags of the
+     * annotated body and footer sentences are reused, remaining lines of the
+     * plain text, including the lines of pruned boilerplate blocks, are
+     * annotated by the job offer, which reuses the annotations of the lines
+     * made while parsing.
      *
-     * @param text to analyse for organisation names
+     * @param jobOffer to analyse for organisation names
      * @return list of probable organisation names
      */
-    private List<String> getNerCandidates(String text) {
+    private List<String> getNerCandidates(JobOffer jobOffer) {
 
-        StanfordCoreNLP pipeline = new StanfordCoreNLP(FileUtils.getStanfordCoreNLPGermanConfiguration());
+        List<CoreMap> sentences = new ArrayList<>();
+        List<String> linesToAnnotate = new ArrayList<>();
 
-        Annotation document = new Annotation(text);
+        if (hasNerTags(jobOffer.getAnnotatedBodySentences()) && hasNerTags(jobOffer.getAnnotatedFooterSentences())) {
+
+            addAllSentences(sentences, jobOffer.getAnnotatedBodySentences());
+            addAllSentences(sentences, jobOffer.getAnnotatedFooterSentences());
+
+            // lines without sentences, e.g. headings or addresses, and lines of pruned boilerplate are not annotated yet
+            boolean boilerplatePruned = !jobOffer.getBodyContentPlainText().equals(jobOffer.getBodyPlainTextWithoutFooter());
+            for (String line : jobOffer.getPlainTextLines()) {
+                if (StringUtils.extractSentencesFromPlaintText(line).isEmpty()
+                        || boilerplatePruned && !isAnnotatedLine(jobOffer, line)) {
+                    linesToAnnotate.add(line);
+                }
+            }
 
-        // run all Annotators on this text
-        try {
-            pipeline.annotate(document);
-        } catch (Exception e) {
-            LOG.error("Something went wrong while getting NER candidates!", e);
+        } else {
+            linesToAnnotate.addAll(jobOffer.getPlainTextLines());
         }
 
-        List<CoreMap> sentences = document.get(CoreAnnotations.SentencesAnnotation.class);
+        // run NER on remaining lines
+        for (String line : linesToAnnotate) {
+            try {
+                sentences.addAll(jobOffer.getAnnotatedSentences(line, NlpProfile.NER));
+            } catch (Exception e) {
+                LOG.error("Something went wrong while getting NER candidates!", e);
+            }
+        }
 
         List<String> candidates = new ArrayList<>();
 
@@ -333,7 +357,7 @@ public class OrganisationExtractor implements IExtractor {
                 String word = token.get(CoreAnnotations.TextAnnotation.class);
                 String ne = token.get(CoreAnnotations.NamedEntityTagAnnotation.class);
 
-                if (ne.equals("I-ORG")) {
+                if ("I-ORG".equals(ne)) {
                     currentOrganisation = currentOrganisation + " " + word;
                 } else if (currentOrganisation != "") {
                     candidates.add(currentOrganisation);
@@ -350,4 +374,46 @@ public class OrganisationExtractor implements IExtractor {
         return candidates;
     }
 
+    /**
+     * Checks whether given line of the plain text is part of the annotated
+     * body or footer sentences. Lines of boilerplate blocks pruned from the
+     * body are not.
+     *
+     * @param jobOffer containing the line
+     * @param line     of the plain text
+     * @return true if the line is part of the annotated text
+     */
+    private boolean isAnnotatedLine(JobOffer jobOffer, String line) {
+        String footerPlainText = jobOffer.getFooterPlainText();
+        return jobOffer.getBodyContentPlainText().contains(line)
+                || footerPlainText != null && footerPlainText.contains(line);
+    }
+
+    /**
+     * Checks whether given sentences have been annotated with NER tags.
+     *
+     * @param sentences to check, may be null
+     * @return true if the sentences are missing or carry NER tags
+     */
+    private boolean hasNerTags(List<CoreMap> sentences) {
+        if (sentences == null || sentences.isEmpty()) {
+            return true;
+        }
+
+        List<CoreLabel> tokens = sentences.get(0).get(CoreAnnotations.TokensAnnotation.class);
+        return tokens.isEmpty() || tokens.get(0).get(CoreAnnotations.NamedEntityTagAnnotation.class) != null;
+    }
+
+    /**
+     * Adds given sentences to the sentence list.
+     *
+     * @param sentences      list to add the sentences to
+     * @param sentencesToAdd  sentences to add, may be null
+     */
+    private void addAllSentences(List<CoreMap> sentences, List<CoreMap> sentencesToAdd) {
+        if (sentencesToAdd != null) {
+            sentences.addAll(sentencesToAdd);
+        }
+    }
+
 }
@@ -48,7 +48,7 @@ public class SkillExtractor implements IExtractor {
         LOG.debug("No skills found.");
         LOG.debug("Extract nouns from skill lists");
 
-        formatSkills(ratedSkillLists);
+        formatSkills(jobOffer, ratedSkillLists);
 
         // create single skill list
         HashSet<String> mergedSkillList = new HashSet<>();
@@ -63,20 +63,29 @@ public class SkillExtractor implements IExtractor {
     @Override
     public void learn(String data) {
         if (!StringUtils.isEmpty(data)) {
-            data = data.replaceAll(SkillExtractorConstants.SEPARATOR, "\n");
+            data = data.replace(SkillExtractorConstants.SEPARATOR, "\n");
             FileUtils.addDataToTrainFile(ConfigurationUtil.get("extraction.skills.train.positive"), data);
+            for (String skill : data.split("\n")) {
+                NlpHelper.getInstance().learnSkill(skill);
+            }
         }
     }
 
+    @Override
+    public NlpProfile getRequiredNlpProfile() {
+        return NlpProfile.POS;
+    }
+
     /**
      * Formats skills of given skill List Map by extracting nouns from the sentences.
+     * @param jobOffer Job offer the skills have been found in
      * @param ratedSkillLists Formatted skill List Map
      */
-    private void formatSkills(Map<IntStringPair, List<String>> ratedSkillLists) {
+    private void formatSkills(JobOffer jobOffer, Map<IntStringPair, List<String>> ratedSkillLists) {
         for (IntStringPair listTitle : ratedSkillLists.keySet()) {
             List<String> skillSentences = ratedSkillLists.get(listTitle);
 
-            List<String> formattedSkills = extractSkills(skillSentences);
+            List<String> formattedSkills = extractSkills(jobOffer, skillSentences);
 
             // replace old list
             ratedSkillLists.put(listTitle, formattedSkills);
@@ -86,11 +95,16 @@ public class SkillExtractor implements IExtractor {
     /**
      * Extracts nouns of given List of skill sentences
      *
+     * @param jobOffer       Job offer the skill sentences have been found in
      * @param skillSentences List of skill sentences
      * @return List of skill nouns
      */
-    private List<String> extractSkills(List<String> skillSentences) {
-        List<String> extractedNouns = NlpHelper.getInstance().extractNouns(skillSentences);
+    private List<String> extractSkills(JobOffer jobOffer, List<String> skillSentences) {
+        List<String> extractedNouns = new ArrayList<>();
+        for (String skillSentence : skillSentences) {
+            List<CoreMap> annotatedSentences = jobOffer.getAnnotatedSentences(skillSentence, NlpProfile.POS);
+            extractedNouns.addAll(NlpHelper.getInstance().extractNounsFromAnnotatedSentences(annotatedSentences));
+        }
         return filterSkillNouns(extractedNouns);
     }
 
@@ -296,7 +310,8 @@ public class SkillExtractor implements IExtractor {
         String lastLine = null;
         String lastListTitle = null;
         List<String> lastListItems = new ArrayList<>();
-        String[] lines = jobOffer.getPlainText().split("\\n");
+        String[] lines = PatternRegistry.LINE_BREAK.split(jobOffer.getPlainText());
+        Matcher matcher = SkillExtractorConstants.PATTERN_BULLET_POINT.matcher("");
         for (String line : lines) {
             line = line.trim();
 
@@ -308,8 +323,7 @@ public class SkillExtractor implements IExtractor {
                 }
             } else {
                 // check for potential list
-                Matcher matcher = Pattern.compile("^([^a-zA-ZäöüÄÖÜ])\\s+.*$").matcher(line);
-                if (matcher.find()) {
+                if (matcher.reset(line).find()) {
                     String bulletPoint = matcher.group(1);
 
                     if (lastBulletPoint == null) {
@@ -384,7 +398,7 @@ public class SkillExtractor implements IExtractor {
                 }
             }
 
-            int nofWords = line.split("\\s").length;
+            int nofWords = PatternRegistry.WHITESPACE.split(line).length;
             if (nofWords > 6) {
                 // ignore lines with many words
                 continue;
@@ -508,12 +522,12 @@ public class SkillExtractor implements IExtractor {
         int rating = 0;
 
         // adjust rating by number of words in title
-        int nofWords = title.split("\\s").length;
+        int nofWords = PatternRegistry.WHITESPACE.split(title).length;
         if (nofWords > 6) {
             rating -= nofWords * 5;
         }
 
-        List<CoreMap> annotatedSentences = NlpHelper.getInstance().getAnnotatedSentences(title);
+        List<CoreMap> annotatedSentences = jobOffer.getAnnotatedSentences(title, NlpProfile.FULL);
         for (CoreMap annotatedSentence : annotatedSentences) {
             SemanticGraph semanticGraph = annotatedSentence.get(SemanticGraphCoreAnnotations.BasicDependenciesAnnotation.class);
             Collection<TypedDependency> typedDependencies = semanticGraph.typedDependencies();
@@ -652,7 +666,7 @@ public class SkillExtractor implements IExtractor {
     private String getListTitle(JobOffer jobOffer, Elements listItems) {
         String firstListText = null;
         for (Element listItem : listItems) {
-            firstListText = HtmlUtils.getPlainTextFromHtml(listItem.html()).trim();
+            firstListText = HtmlUtils.getPlainText(listItem).trim();
             firstListText = getLastLine(firstListText);
             if (firstListText != null) {
                 break;
@@ -676,7 +690,7 @@ public class SkillExtractor implements IExtractor {
      * @return Number of special characters
      */
     private int getNumberOfSpecialChars(String text) {
-        Matcher specialCharMatcher = Pattern.compile(SkillExtractorConstants.SPECIAL_CHARACTER_REGEX).matcher(text);
+        Matcher specialCharMatcher = SkillExtractorConstants.PATTERN_SPECIAL_CHARACTER.matcher(text);
         int specialCharCounter = 0;
         while (specialCharMatcher.find()) {
             specialCharCounter++;
@@ -3,6 +3,7 @@ package ch.fhnw.jobannotations.extractors.skills;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.regex.Pattern;
 
 /**
  * This class holds constants that are used in {@link SkillExtractor}
@@ -67,5 +68,6 @@ class SkillExtractorConstants {
     );
     static final int SKILL_NOUN_DEFAULT_DISTANCE_ADJUST_VALUE = 3000;
     static final String SEPARATOR = ",";
-    static final String SPECIAL_CHARACTER_REGEX = "[^a-zA-Z .,:äöüÄÖÜ]";
+    static final Pattern PATTERN_SPECIAL_CHARACTER = Pattern.compile("[^a-zA-Z .,:äöüÄÖÜ]");
+    static final Pattern PATTERN_BULLET_POINT = Pattern.compile("^([^a-zA-ZäöüÄÖÜ])\\s+.*$");
 }
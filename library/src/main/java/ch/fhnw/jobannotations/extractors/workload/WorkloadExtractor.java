@@ -3,6 +3,8 @@ package ch.fhnw.jobannotations.extractors.workload;
 import ch.fhnw.jobannotations.domain.JobOffer;
 import ch.fhnw.jobannotations.extractors.IExtractor;
 import ch.fhnw.jobannotations.utils.IntStringPair;
+import ch.fhnw.jobannotations.utils.NlpProfile;
+import ch.fhnw.jobannotations.utils.PatternRegistry;
 import org.apache.log4j.Logger;
 
 import java.util.ArrayList;
@@ -22,6 +24,7 @@ public class WorkloadExtractor implements IExtractor {
     final static Logger LOG = Logger.getLogger(WorkloadExtractor.class);
 
     public static final String WORKLOAD_REGEX = "(\\d+\\s*%?\\s*(.|\\w+)\\s*)?\\d+\\s*%";
+    private static final Pattern PATTERN_WORKLOAD = Pattern.compile(WORKLOAD_REGEX);
     private static final int RATING_REPETITION = 25;
     private static final int RATING_UNLIKELY_WORKLOAD = -50;
 
@@ -34,7 +37,7 @@ public class WorkloadExtractor implements IExtractor {
 
         List<IntStringPair> ratedWorkloads = new ArrayList<>();
 
-        Matcher workloadMatcher = Pattern.compile(WORKLOAD_REGEX).matcher(text);
+        Matcher workloadMatcher = PATTERN_WORKLOAD.matcher(text);
         while (workloadMatcher.find()) {
             String match = workloadMatcher.group();
             IntStringPair ratedWorkload = new IntStringPair(100, match);
@@ -61,19 +64,25 @@ public class WorkloadExtractor implements IExtractor {
         // NOP - makes currently no sense
     }
 
+    @Override
+    public NlpProfile getRequiredNlpProfile() {
+        return NlpProfile.POS;
+    }
+
     /**
      * Removes invalid workloads and decreases ratings of unlikely workloads
      *
      * @param ratedWorkloads List of rated workloads
      */
     private void validateWorkloads(List<IntStringPair> ratedWorkloads) {
+        Matcher digitMatcher = PatternRegistry.NUMBER.matcher("");
         outer:
         for (int i = ratedWorkloads.size() - 1; i >= 0; i--) {
             IntStringPair ratedWorkload = ratedWorkloads.get(i);
 
             // get digits
             List<Integer> digits = new ArrayList<>();
-            Matcher digitMatcher = Pattern.compile("\\d+").matcher(ratedWorkload.getString());
+            digitMatcher.reset(ratedWorkload.getString());
             while (digitMatcher.find()) {
                 digits.add(Integer.parseInt(digitMatcher.group()));
             }
@@ -0,0 +1,130 @@
+package ch.fhnw.jobannotations.utils;
+
+import edu.stanford.nlp.pipeline.Annotation;
+import edu.stanford.nlp.pipeline.ProtobufAnnotationSerializer;
+import org.apache.log4j.Logger;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Persistent store of annotated texts. Annotations are saved as compressed CoreNLP protocol buffers in files named by
+ * a hash of the text, the NLP profile and the model version. Reprocessing a corpus with unchanged texts therefore loads
+ * the stored annotations instead of running the NLP pipeline again. Changing the model version invalidates all stored
+ * annotations.
+ */
+public class AnnotationStore {
+    private final static Logger LOG = Logger.getLogger(AnnotationStore.class);
+
+    private static final String FILE_EXTENSION = ".pb.gz";
+
+    private final Path directory;
+    private final String modelVersion;
+
+    /**
+     * Constructs a store.
+     *
+     * @param directory    Directory to save annotations in, will be created if missing
+     * @param modelVersion Version of the NLP models and configuration that produced the annotations
+     */
+    public AnnotationStore(Path directory, String modelVersion) {
+        this.directory = directory;
+        this.modelVersion = modelVersion;
+    }
+
+    /**
+     * Creates a store as defined by <code>configuration.nlp.store.directory</code> and
+     * <code>configuration.nlp.store.version</code>.
+     *
+     * @param configurationVersion Version of the NLP configuration, will be combined with the configured version
+     * @return Configured store or null if no store directory is configured
+     */
+    public static AnnotationStore fromConfiguration(String configurationVersion) {
+        String directory = ConfigurationUtil.get("configuration.nlp.store.directory", "");
+        if (directory.isEmpty()) {
+            return null;
+        }
+
+        String version = ConfigurationUtil.get("configuration.nlp.store.version", "1");
+        LOG.debug("Using annotation store in " + directory);
+        return new AnnotationStore(Paths.get(directory), version + '\n' + configurationVersion);
+    }
+
+    /**
+     * Loads stored annotations of given text.
+     *
+     * @param text    Annotated text
+     * @param profile Profile the text has been annotated with
+     * @return Stored annotation or null if nothing stored or reading failed
+     */
+    public Annotation load(String text, NlpProfile profile) {
+        Path file = getFile(text, profile);
+        if (!Files.exists(file)) {
+            return null;
+        }
+
+        try (InputStream input = new GZIPInputStream(Files.newInputStream(file))) {
+            return new ProtobufAnnotationSerializer(false).read(input).first;
+
+        } catch (IOException | ClassNotFoundException | RuntimeException e) {
+            LOG.warn("Failed to load stored annotation " + file + ", annotating again", e);
+        }
+
+        return null;
+    }
+
+    /**
+     * Saves annotations of given text. The file is written atomically, so concurrent readers never see partial files.
+     *
+     * @param text       Annotated text
+     * @param profile    Profile the text has been annotated with
+     * @param annotation Annotation of the text
+     */
+    public void save(String text, NlpProfile profile, Annotation annotation) {
+        Path file = getFile(text, profile);
+
+        try {
+            Files.createDirectories(file.getParent());
+            Path tempFile = Files.createTempFile(file.getParent(), file.getFileName().toString(), ".tmp");
+
+            try {
+                try (OutputStream output = new GZIPOutputStream(Files.newOutputStream(tempFile))) {
+                    new ProtobufAnnotationSerializer(false).write(annotation, output);
+                }
+
+                try {
+                    Files.move(tempFile, file, StandardCopyOption.ATOMIC_MOVE);
+                } catch (AtomicMoveNotSupportedException e) {
+                    Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING);
+                }
+
+            } finally {
+                Files.deleteIfExists(tempFile);
+            }
+
+        } catch (IOException | RuntimeException e) {
+            LOG.warn("Failed to store annotation " + file, e);
+        }
+    }
+
+    /**
+     * Returns the file of the annotations of given text. Files are distributed to sub directories by the first two
+     * characters of their hash.
+     *
+     * @param text    Annotated text
+     * @param profile Profile the text has been annotated with
+     * @return File of the annotations
+     */
+    private Path getFile(String text, NlpProfile profile) {
+        String hash = StringUtils.hash(modelVersion + '\n' + profile.name() + '\n' + text);
+        return directory.resolve(hash.substring(0, 2)).resolve(hash + FILE_EXTENSION);
+    }
+}
@@ -0,0 +1,345 @@
+package ch.fhnw.jobannotations.utils;
+
+import org.apache.log4j.Logger;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Collection;
+import java.util.TreeSet;
+
+/**
+ * Read-only dictionary stored in a precompiled binary file, which is memory-mapped instead of being read into the
+ * heap. Exact lookups are binary searches on the mapped bytes, so the file is usable right after opening and its pages
+ * are shared by all processes mapping it. The {@link LearningLog} uses it to look up known entries of a train file,
+ * {@link NlpHelper} serves the dictionaries of up to date binary files by a {@link MappedDictionary}.
+ * <p>
+ * The sorted entries form an implicit trie: the entries starting with a prefix are a range of indexes, which is
+ * narrowed byte by byte, see {@link #getPrefixEnd(int, int, int)}. The {@link BinaryDictionaryChunker} walks this
+ * trie to find approximate matches.
+ * <p>
+ * The file starts with the magic number, the format version and the number of entries, followed by the offsets of
+ * the entries and the UTF-8 bytes of the entries in unsigned byte order. Binary files are created from the text
+ * dictionaries by {@link #convert(String)} or by running this class with the text files as arguments.
+ */
+public class BinaryDictionary {
+
+    private final static Logger LOG = Logger.getLogger(BinaryDictionary.class);
+
+    public static final String BINARY_FILE_SUFFIX = ".bin";
+
+    private static final int MAGIC_NUMBER = 0x4A414443;
+    private static final int FORMAT_VERSION = 1;
+    private static final int HEADER_LENGTH = 12;
+
+    private final ByteBuffer buffer;
+    private final int size;
+    private final int dataStart;
+
+    private BinaryDictionary(ByteBuffer buffer) throws IOException {
+        if (buffer.capacity() < HEADER_LENGTH || buffer.getInt(0) != MAGIC_NUMBER) {
+            throw new IOException("Not a binary dictionary");
+        }
+        if (buffer.getInt(4) != FORMAT_VERSION) {
+            throw new IOException("Unsupported binary dictionary version " + buffer.getInt(4));
+        }
+
+        this.buffer = buffer;
+        this.size = buffer.getInt(8);
+        this.dataStart = HEADER_LENGTH + (size + 1) * 4;
+    }
+
+    /**
+     * Converts the given text dictionaries to binary dictionaries next to them.
+     *
+     * @param args Text dictionaries, one entry per line
+     * @throws IOException if a file could not be converted
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length == 0) {
+            System.err.println("Usage: BinaryDictionary <dictionary.txt>...");
+            return;
+        }
+
+        for (String filename : args) {
+            Path binaryFile = convert(filename);
+            System.out.println("Converted " + filename + " to " + binaryFile);
+        }
+    }
+
+    /**
+     * Opens given binary dictionary. The file is mapped read-only and must not be changed while it is open, new
+     * versions have to replace it.
+     *
+     * @param file Binary dictionary
+     * @return Dictionary backed by the mapped file
+     * @throws IOException if the file could not be mapped or is not a binary dictionary
+     */
+    public static BinaryDictionary open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            // the mapping stays valid after the channel is closed
+            return new BinaryDictionary(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    /**
+     * Creates a binary dictionary of given entries in the heap, e.g. to extend a mapped dictionary without writing a
+     * file. The bytes are the same as those of a written file.
+     *
+     * @param entries Entries of the dictionary, empty entries and duplicates are skipped
+     * @return Dictionary backed by a heap buffer
+     */
+    public static BinaryDictionary create(Collection<String> entries) {
+        try {
+            return new BinaryDictionary(ByteBuffer.wrap(encode(entries)));
+        } catch (IOException e) {
+            // the encoded bytes are always a valid dictionary
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Returns the binary dictionary of given text dictionary.
+     *
+     * @param textFile Text dictionary
+     * @return Binary dictionary next to the text dictionary
+     */
+    public static Path getBinaryFile(Path textFile) {
+        return textFile.resolveSibling(textFile.getFileName() + BINARY_FILE_SUFFIX);
+    }
+
+    /**
+     * Checks whether the binary dictionary of given text dictionary exists and is newer than the text dictionary.
+     *
+     * @param textFile Text dictionary
+     * @return <code>true</code> if the binary dictionary can be used instead of the text dictionary
+     */
+    public static boolean isUpToDate(Path textFile) {
+        Path binaryFile = getBinaryFile(textFile);
+        try {
+            return Files.exists(binaryFile) && (!Files.exists(textFile)
+                    || Files.getLastModifiedTime(binaryFile).compareTo(Files.getLastModifiedTime(textFile)) > 0);
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Converts given text dictionary to a binary dictionary next to it. Empty lines and duplicates are skipped.
+     *
+     * @param filename Text dictionary, one entry per line
+     * @return Created binary dictionary
+     * @throws IOException if the text dictionary could not be read or the binary dictionary could not be written
+     */
+    public static Path convert(String filename) throws IOException {
+        Path textFile = Paths.get(filename);
+        Path binaryFile = getBinaryFile(textFile);
+        write(Files.readAllLines(textFile, StandardCharsets.UTF_8), binaryFile);
+        return binaryFile;
+    }
+
+    /**
+     * Writes given entries to a binary dictionary. The file is replaced atomically, so it may be mapped by other
+     * processes.
+     *
+     * @param entries Entries of the dictionary, empty entries and duplicates are skipped
+     * @param file    Binary dictionary to be written
+     * @throws IOException if the file could not be written
+     */
+    public static void write(Collection<String> entries, Path file) throws IOException {
+        Path tempFile = file.resolveSibling(file.getFileName() + ".tmp");
+        Files.write(tempFile, encode(entries));
+
+        try {
+            Files.move(tempFile, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING);
+        }
+        LOG.debug("Wrote binary dictionary " + file);
+    }
+
+    /**
+     * Encodes given entries in the binary format.
+     *
+     * @param entries Entries of the dictionary, empty entries and duplicates are skipped
+     * @return Bytes of the binary dictionary
+     */
+    private static byte[] encode(Collection<String> entries) {
+        TreeSet<byte[]> sortedEntries = new TreeSet<>(BinaryDictionary::compare);
+        for (String entry : entries) {
+            if (!StringUtils.isEmpty(entry)) {
+                sortedEntries.add(entry.getBytes(StandardCharsets.UTF_8));
+            }
+        }
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream output = new DataOutputStream(bytes)) {
+            output.writeInt(MAGIC_NUMBER);
+            output.writeInt(FORMAT_VERSION);
+            output.writeInt(sortedEntries.size());
+
+            int offset = 0;
+            output.writeInt(offset);
+            for (byte[] entry : sortedEntries) {
+                offset += entry.length;
+                output.writeInt(offset);
+            }
+            for (byte[] entry : sortedEntries) {
+                output.write(entry);
+            }
+        } catch (IOException e) {
+            // not thrown by byte array streams
+            throw new IllegalStateException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Checks whether given phrase is an entry of this dictionary. Lookups are case sensitive.
+     *
+     * @param phrase Phrase to be looked up
+     * @return <code>true</code> if the phrase is an entry
+     */
+    public boolean contains(String phrase) {
+        byte[] key = phrase.getBytes(StandardCharsets.UTF_8);
+        int index = lowerBound(key);
+        return index < size && compareEntry(index, key) == 0;
+    }
+
+    /**
+     * Returns the entry at given index.
+     *
+     * @param index Index of the entry in byte order
+     * @return Entry
+     */
+    public String get(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+
+        // duplicate the buffer, positions of the shared buffer must not change
+        ByteBuffer entry = buffer.duplicate();
+        entry.limit(getEntryStart(index + 1));
+        entry.position(getEntryStart(index));
+        return StandardCharsets.UTF_8.decode(entry).toString();
+    }
+
+    /**
+     * Returns the number of entries.
+     *
+     * @return Number of entries
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the length of the entry at given index.
+     *
+     * @param index Index of the entry
+     * @return Number of UTF-8 bytes of the entry
+     */
+    int getLength(int index) {
+        return getEntryStart(index + 1) - getEntryStart(index);
+    }
+
+    /**
+     * Returns a byte of the entry at given index.
+     *
+     * @param index  Index of the entry
+     * @param offset Offset of the byte, smaller than the length of the entry
+     * @return Unsigned value of the byte
+     */
+    int getByte(int index, int offset) {
+        return buffer.get(getEntryStart(index) + offset) & 0xFF;
+    }
+
+    /**
+     * Narrows a prefix range by the next byte. The entries from <code>start</code> to <code>end</code> share their
+     * first <code>offset</code> bytes and are longer than that, e.g. the entries of a prefix range without the prefix
+     * itself. The entries continuing the prefix with the byte of the entry at <code>start</code> form the first part
+     * of the range, the end of that part is returned.
+     *
+     * @param start  First index of the range
+     * @param end    Index after the last entry of the range
+     * @param offset Length of the shared prefix
+     * @return Index after the last entry continuing the prefix with the byte of the first entry
+     */
+    int getPrefixEnd(int start, int end, int offset) {
+        int value = getByte(start, offset);
+        int low = start + 1;
+        int high = end;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (getByte(middle, offset) <= value) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Finds the index of the first entry which is not smaller than given key.
+     *
+     * @param key UTF-8 bytes of the key
+     * @return Index of the entry or {@link #size()} if all entries are smaller
+     */
+    private int lowerBound(byte[] key) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (compareEntry(middle, key) < 0) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Compares the entry at given index with given key in unsigned byte order without decoding the entry.
+     *
+     * @param index Index of the entry
+     * @param key   UTF-8 bytes of the key
+     * @return Negative if the entry is smaller, 0 if equal and positive if the entry is greater than the key
+     */
+    private int compareEntry(int index, byte[] key) {
+        int start = getEntryStart(index);
+        int length = getEntryStart(index + 1) - start;
+
+        for (int i = 0; i < Math.min(length, key.length); i++) {
+            int difference = (buffer.get(start + i) & 0xFF) - (key[i] & 0xFF);
+            if (difference != 0) {
+                return difference;
+            }
+        }
+        return length - key.length;
+    }
+
+    private int getEntryStart(int index) {
+        return dataStart + buffer.getInt(HEADER_LENGTH + index * 4);
+    }
+
+    private static int compare(byte[] entry, byte[] otherEntry) {
+        for (int i = 0; i < Math.min(entry.length, otherEntry.length); i++) {
+            int difference = (entry[i] & 0xFF) - (otherEntry[i] & 0xFF);
+            if (difference != 0) {
+                return difference;
+            }
+        }
+        return entry.length - otherEntry.length;
+    }
+}
@@ -0,0 +1,240 @@
+package ch.fhnw.jobannotations.utils;
+
+import com.aliasi.chunk.ChunkFactory;
+import com.aliasi.chunk.Chunking;
+import com.aliasi.chunk.ChunkingImpl;
+import com.aliasi.dict.ApproxDictionaryChunker;
+import com.aliasi.spell.FixedWeightEditDistance;
+import com.aliasi.tokenizer.Tokenizer;
+import com.aliasi.tokenizer.TokenizerFactory;
+
+import java.util.Arrays;
+
+/**
+ * Approximate dictionary chunker of a {@link MappedDictionary}. The sorted entries of the binary dictionary are walked
+ * as a trie by narrowing prefix ranges, the Levenshtein distances of all spans starting at a token are computed along
+ * the way and branches exceeding the max distance are pruned. Only the band of distances not exceeding the max
+ * distance is computed, so a step costs the same for short and long texts.
+ * <p>
+ * The chunks found are the same as those of an {@link ApproxDictionaryChunker} with unit edit costs: every span
+ * starting and ending at token boundaries is matched with the closest phrase of the dictionary.
+ */
+public class BinaryDictionaryChunker extends ApproxDictionaryChunker {
+
+    private static final int NO_MATCH = Integer.MAX_VALUE / 2;
+
+    private final BinaryDictionary binaryDictionary;
+    private final String category;
+
+    /**
+     * Constructs a chunker of given dictionary with unit edit costs.
+     *
+     * @param dictionary       Dictionary to be used
+     * @param tokenizerFactory Tokenizer factory defining the token boundaries of chunks
+     * @param maxDistance      Max distance of the chunks
+     */
+    public BinaryDictionaryChunker(MappedDictionary dictionary, TokenizerFactory tokenizerFactory, double maxDistance) {
+        super(dictionary, tokenizerFactory, new FixedWeightEditDistance(0, -1, -1, -1, Double.NaN), maxDistance);
+        this.binaryDictionary = dictionary.getBinaryDictionary();
+        this.category = dictionary.getCategory();
+    }
+
+    @Override
+    public Chunking chunk(CharSequence text) {
+        char[] chars = text.toString().toCharArray();
+        return chunk(chars, 0, chars.length);
+    }
+
+    @Override
+    public Chunking chunk(char[] chars, int start, int end) {
+        ChunkingImpl chunking = new ChunkingImpl(chars, start, end);
+        if (distanceThreshold() < 0 || binaryDictionary.size() == 0) {
+            return chunking;
+        }
+
+        String text = new String(chars, start, end - start);
+        int maxDistance = (int) distanceThreshold();
+
+        // collect token boundaries
+        boolean[] tokenStarts = new boolean[text.length() + 1];
+        boolean[] tokenEnds = new boolean[text.length() + 1];
+        Tokenizer tokenizer = tokenizerFactory().tokenizer(chars, start, end - start);
+        String token;
+        while ((token = tokenizer.nextToken()) != null) {
+            int tokenStart = tokenizer.lastTokenStartPosition();
+            tokenStarts[tokenStart] = true;
+            tokenEnds[tokenStart + token.length()] = true;
+        }
+
+        for (int spanStart = 0; spanStart < text.length(); spanStart++) {
+            if (!tokenStarts[spanStart]) {
+                continue;
+            }
+
+            Search search = new Search(text, spanStart, tokenEnds, maxDistance);
+            search.walk(0, binaryDictionary.size(), 0, search.createFirstRow(), 0, 0, 0);
+
+            for (int spanEnd = spanStart + 1; spanEnd <= text.length(); spanEnd++) {
+                int distance = search.distances[spanEnd - spanStart];
+                if (distance <= maxDistance) {
+                    chunking.add(ChunkFactory.createChunk(spanStart, spanEnd, category, distance));
+                }
+            }
+        }
+
+        return chunking;
+    }
+
+    /**
+     * Search of the closest phrases of the spans starting at a token. A row holds the distances of a phrase prefix to
+     * the spans whose length differs by at most the max distance from the length of the prefix: the span of length
+     * <code>i</code> is at index <code>i - prefixLength + maxDistance</code>.
+     */
+    private class Search {
+
+        private final String text;
+        private final int spanStart;
+        private final boolean[] tokenEnds;
+        private final int maxDistance;
+
+        // closest distance of every span length
+        private final int[] distances;
+
+        private Search(String text, int spanStart, boolean[] tokenEnds, int maxDistance) {
+            this.text = text;
+            this.spanStart = spanStart;
+            this.tokenEnds = tokenEnds;
+            this.maxDistance = maxDistance;
+            this.distances = new int[text.length() - spanStart + 1];
+            Arrays.fill(distances, NO_MATCH);
+        }
+
+        /**
+         * Creates the row of the empty prefix, its distance to a span is the length of the span.
+         *
+         * @return First row
+         */
+        private int[] createFirstRow() {
+            int[] row = new int[2 * maxDistance + 1];
+            for (int index = 0; index < row.length; index++) {
+                int spanLength = index - maxDistance;
+                row[index] = spanLength >= 0 && spanLength <= distances.length - 1 ? spanLength : NO_MATCH;
+            }
+            return row;
+        }
+
+        /**
+         * Visits the entries sharing a prefix. Records the distances of the entry equal to the prefix and visits the
+         * ranges continuing the prefix with the same byte.
+         *
+         * @param rangeStart   First index of the entries sharing the prefix
+         * @param rangeEnd     Index after the last entry sharing the prefix
+         * @param offset       Number of bytes of the prefix
+         * @param row          Distances of the complete characters of the prefix
+         * @param prefixLength Number of complete characters of the prefix
+         * @param codePoint    Bits of an incomplete UTF-8 sequence at the end of the prefix
+         * @param pendingBytes Number of missing bytes of the incomplete sequence
+         */
+        private void walk(int rangeStart, int rangeEnd, int offset, int[] row, int prefixLength, int codePoint, int pendingBytes) {
+            int childStart = rangeStart;
+            if (binaryDictionary.getLength(rangeStart) == offset) {
+                // entries are sorted by length within a prefix range, so the prefix itself comes first
+                recordDistances(row, prefixLength);
+                childStart++;
+            }
+
+            while (childStart < rangeEnd) {
+                int childEnd = binaryDictionary.getPrefixEnd(childStart, rangeEnd, offset);
+                int value = binaryDictionary.getByte(childStart, offset);
+
+                if (pendingBytes > 0) {
+                    // continuation byte
+                    visit(childStart, childEnd, offset + 1, row, prefixLength, (codePoint << 6) | (value & 0x3F), pendingBytes - 1);
+                } else if (value < 0x80) {
+                    visit(childStart, childEnd, offset + 1, row, prefixLength, value, 0);
+                } else if (value < 0xE0) {
+                    visit(childStart, childEnd, offset + 1, row, prefixLength, value & 0x1F, 1);
+                } else if (value < 0xF0) {
+                    visit(childStart, childEnd, offset + 1, row, prefixLength, value & 0x0F, 2);
+                } else {
+                    visit(childStart, childEnd, offset + 1, row, prefixLength, value & 0x07, 3);
+                }
+                childStart = childEnd;
+            }
+        }
+
+        /**
+         * Extends the prefix by a byte. Computes the rows of a completed character and prunes the branch if no span
+         * is within the max distance of the extended prefix.
+         */
+        private void visit(int rangeStart, int rangeEnd, int offset, int[] row, int prefixLength, int codePoint, int pendingBytes) {
+            if (pendingBytes > 0) {
+                walk(rangeStart, rangeEnd, offset, row, prefixLength, codePoint, pendingBytes);
+                return;
+            }
+
+            int[] extendedRow = row;
+            int extendedLength = prefixLength;
+            for (char character : Character.toChars(codePoint)) {
+                extendedRow = createNextRow(extendedRow, extendedLength++, character);
+            }
+
+            for (int distance : extendedRow) {
+                if (distance <= maxDistance) {
+                    walk(rangeStart, rangeEnd, offset, extendedRow, extendedLength, 0, 0);
+                    return;
+                }
+            }
+        }
+
+        /**
+         * Computes the row of the prefix extended by given character.
+         *
+         * @param row          Row of the prefix
+         * @param prefixLength Number of characters of the prefix
+         * @param character    Next character of the phrase
+         * @return Row of the extended prefix
+         */
+        private int[] createNextRow(int[] row, int prefixLength, char character) {
+            int[] nextRow = new int[row.length];
+            for (int index = 0; index < row.length; index++) {
+                int spanLength = index - maxDistance + prefixLength + 1;
+                if (spanLength < 0 || spanLength > distances.length - 1) {
+                    nextRow[index] = NO_MATCH;
+                    continue;
+                }
+
+                // the span without its last character is at the same index of the previous row
+                int distance = NO_MATCH;
+                if (spanLength > 0) {
+                    boolean match = text.charAt(spanStart + spanLength - 1) == character;
+                    distance = row[index] + (match ? 0 : 1);
+                }
+                if (index + 1 < row.length) {
+                    distance = Math.min(distance, row[index + 1] + 1);
+                }
+                if (index > 0) {
+                    distance = Math.min(distance, nextRow[index - 1] + 1);
+                }
+                nextRow[index] = Math.min(distance, NO_MATCH);
+            }
+            return nextRow;
+        }
+
+        /**
+         * Records the distances of a phrase to the spans ending at a token.
+         *
+         * @param row          Row of the phrase
+         * @param phraseLength Number of characters of the phrase
+         */
+        private void recordDistances(int[] row, int phraseLength) {
+            for (int index = 0; index < row.length; index++) {
+                int spanLength = index - maxDistance + phraseLength;
+                if (spanLength > 0 && spanLength < distances.length && tokenEnds[spanStart + spanLength]
+                        && row[index] < distances[spanLength]) {
+                    distances[spanLength] = row[index];
+                }
+            }
+        }
+    }
+}
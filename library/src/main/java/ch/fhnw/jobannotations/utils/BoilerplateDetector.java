@@ -0,0 +1,240 @@
+package ch.fhnw.jobannotations.utils;
+
+import org.jsoup.nodes.Element;
+import org.jsoup.nodes.Node;
+import org.jsoup.nodes.TextNode;
+import org.jsoup.select.NodeVisitor;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Predicate;
+import java.util.regex.Pattern;
+
+/**
+ * Detects boilerplate blocks of a job offer body, like cookie banners, navigation menus and link lists, which do not
+ * contain information about the job. Blocks are scored by their text and link density: a block is boilerplate if most
+ * of its text is linked, or if its tag, id or class marks it as navigation and a fair part of its text is linked.
+ * Cookie and consent banners are recognised by their id or class alone. Blocks containing a large share of the body
+ * text are never considered boilerplate, so a misleading class of the main content cannot remove the job description.
+ */
+public class BoilerplateDetector {
+
+    // id and class keywords of banners which are boilerplate regardless of their links
+    private static final List<String> BANNER_KEYWORDS = Arrays.asList("cookie", "consent", "gdpr");
+
+    // id and class keywords of navigation blocks
+    private static final List<String> NAVIGATION_KEYWORDS = Arrays.asList(
+            "breadcrumb", "menu", "navbar", "navigation", "newsletter", "related", "share", "sidebar", "social", "teaser");
+
+    // id and class tokens of navigation blocks, which are too short to be searched within other words
+    private static final Set<String> NAVIGATION_TOKENS = new HashSet<>(Arrays.asList("nav", "navi", "similar"));
+
+    // separators of id and class tokens
+    private static final Pattern TOKEN_SEPARATOR = Pattern.compile("[^a-z0-9]+");
+
+    // tags of navigation blocks
+    private static final Set<String> NAVIGATION_TAGS = new HashSet<>(Arrays.asList("aside", "menu", "nav"));
+
+    private final int maxLinkDensity;
+    private final int minLinks;
+    private final int maxNavigationLinkDensity;
+    private final int maxTextShare;
+
+    /**
+     * Constructs a detector with the thresholds of the configuration.
+     */
+    public BoilerplateDetector() {
+        this(ConfigurationUtil.getInt("configuration.boilerplate.maxLinkDensity", 70),
+                ConfigurationUtil.getInt("configuration.boilerplate.minLinks", 5),
+                ConfigurationUtil.getInt("configuration.boilerplate.maxNavigationLinkDensity", 30),
+                ConfigurationUtil.getInt("configuration.boilerplate.maxTextShare", 50));
+    }
+
+    /**
+     * Constructs a detector with the given thresholds.
+     *
+     * @param maxLinkDensity           Max percentage of linked text of a block with at least min links
+     * @param minLinks                 Min number of links of a block exceeding the max link density
+     * @param maxNavigationLinkDensity Max percentage of linked text of a block marked as navigation
+     * @param maxTextShare             Max percentage of the body text contained in a boilerplate block
+     */
+    public BoilerplateDetector(int maxLinkDensity, int minLinks, int maxNavigationLinkDensity, int maxTextShare) {
+        this.maxLinkDensity = maxLinkDensity;
+        this.minLinks = minLinks;
+        this.maxNavigationLinkDensity = maxNavigationLinkDensity;
+        this.maxTextShare = maxTextShare;
+    }
+
+    /**
+     * Finds the boilerplate blocks of given element. Blocks within boilerplate blocks are not reported separately.
+     *
+     * @param element   Element to be analysed, usually the body
+     * @param exclusion Matches the nodes which are not analysed, e.g. the footer
+     * @return Boilerplate blocks by identity
+     */
+    public Set<Node> findBoilerplate(Element element, Predicate<Node> exclusion) {
+        Map<Element, BlockStatistics> statistics = collectStatistics(element, exclusion);
+        Set<Node> boilerplate = Collections.newSetFromMap(new IdentityHashMap<>());
+        BlockStatistics total = statistics.get(element);
+        if (total == null || total.textLength == 0) {
+            return boilerplate;
+        }
+
+        // top down, the first boilerplate block of a branch hides its descendants
+        Deque<Element> elements = new ArrayDeque<>(element.children());
+        while (!elements.isEmpty()) {
+            Element current = elements.pop();
+            BlockStatistics block = statistics.get(current);
+            if (block == null) {
+                continue;
+            }
+
+            if (current.isBlock() && isBoilerplate(current, block, total)) {
+                boilerplate.add(current);
+            } else {
+                List<Element> children = current.children();
+                for (int i = children.size() - 1; i >= 0; i--) {
+                    elements.push(children.get(i));
+                }
+            }
+        }
+
+        return boilerplate;
+    }
+
+    /**
+     * Scores a block by its text and link density and its tag, id and class.
+     *
+     * @param block      Block element
+     * @param statistics Text statistics of the block
+     * @param total      Text statistics of the analysed element
+     * @return <code>true</code> if the block is boilerplate, <code>false</code> otherwise
+     */
+    private boolean isBoilerplate(Element block, BlockStatistics statistics, BlockStatistics total) {
+        if (statistics.textLength == 0 || statistics.textLength * 100L > total.textLength * (long) maxTextShare) {
+            return false;
+        }
+
+        String marker = (block.id() + " " + block.className() + " " + block.attr("role")).toLowerCase(Locale.ENGLISH);
+        if (containsAny(marker, BANNER_KEYWORDS)) {
+            return true;
+        }
+
+        int linkDensity = (int) (statistics.linkTextLength * 100L / statistics.textLength);
+        boolean navigation = NAVIGATION_TAGS.contains(block.tagName().toLowerCase(Locale.ENGLISH))
+                || containsAny(marker, NAVIGATION_KEYWORDS) || containsAnyToken(marker, NAVIGATION_TOKENS);
+        if (navigation && linkDensity >= maxNavigationLinkDensity) {
+            return true;
+        }
+
+        return statistics.linkCount >= minLinks && linkDensity >= maxLinkDensity;
+    }
+
+    /**
+     * Counts the text and linked text of all elements within given element in one traversal.
+     *
+     * @param element   Analysed element
+     * @param exclusion Matches the nodes which are not counted
+     * @return Text statistics by element
+     */
+    private static Map<Element, BlockStatistics> collectStatistics(Element element, Predicate<Node> exclusion) {
+        Map<Element, BlockStatistics> statistics = new IdentityHashMap<>();
+        BlockStatistics root = new BlockStatistics();
+        statistics.put(element, root);
+
+        Deque<BlockStatistics> openBlocks = new ArrayDeque<>();
+        openBlocks.push(root);
+        HtmlUtils.traverseChildNodes(element, exclusion, new NodeVisitor() {
+            private int openLinks;
+
+            @Override
+            public void head(Node node, int depth) {
+                if (node instanceof TextNode) {
+                    int length = countNonWhitespace(((TextNode) node).getWholeText());
+                    BlockStatistics block = openBlocks.peek();
+                    block.textLength += length;
+                    if (openLinks > 0) {
+                        block.linkTextLength += length;
+                    }
+
+                } else if (node instanceof Element) {
+                    if (isLink((Element) node)) {
+                        openLinks++;
+                        openBlocks.peek().linkCount++;
+                    }
+                    BlockStatistics block = new BlockStatistics();
+                    statistics.put((Element) node, block);
+                    openBlocks.push(block);
+                }
+            }
+
+            @Override
+            public void tail(Node node, int depth) {
+                if (node instanceof Element) {
+                    if (isLink((Element) node)) {
+                        openLinks--;
+                    }
+                    BlockStatistics block = openBlocks.pop();
+                    openBlocks.peek().add(block);
+                }
+            }
+        });
+
+        return statistics;
+    }
+
+    private static boolean isLink(Element element) {
+        return element.tagName().equalsIgnoreCase("a") && element.hasAttr("href");
+    }
+
+    private static int countNonWhitespace(String text) {
+        int count = 0;
+        for (int i = 0; i < text.length(); i++) {
+            if (!Character.isWhitespace(text.charAt(i)) && text.charAt(i) != '\u00A0') {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private static boolean containsAny(String marker, List<String> keywords) {
+        for (String keyword : keywords) {
+            if (marker.contains(keyword)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean containsAnyToken(String marker, Set<String> tokens) {
+        for (String token : TOKEN_SEPARATOR.split(marker)) {
+            if (tokens.contains(token)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Text statistics of an element and its descendants.
+     */
+    private static class BlockStatistics {
+        private int textLength;
+        private int linkTextLength;
+        private int linkCount;
+
+        private void add(BlockStatistics other) {
+            textLength += other.textLength;
+            linkTextLength += other.linkTextLength;
+            linkCount += other.linkCount;
+        }
+    }
+}
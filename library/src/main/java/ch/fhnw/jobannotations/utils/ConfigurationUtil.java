@@ -18,7 +18,6 @@ public final class ConfigurationUtil {
     private final static Logger LOG = Logger.getLogger(ConfigurationUtil.class);
     private final static String CONFIGURATION_FILE = "job-annotations.properties";
 
-    private static ConfigurationUtil instance;
     private Properties properties;
 
     private ConfigurationUtil() {
@@ -36,11 +35,7 @@ public final class ConfigurationUtil {
     }
 
     private static ConfigurationUtil getInstance() {
-
-        if (instance == null)
-            instance = new ConfigurationUtil();
-
-        return instance;
+        return InstanceHolder.INSTANCE;
     }
 
     /**
@@ -53,4 +48,43 @@ public final class ConfigurationUtil {
         return getInstance().properties.getProperty(key).trim();
     }
 
+    /**
+     * Wrapper to grab optional properties from holder
+     *
+     * @param key          the desired property name
+     * @param defaultValue the value to be used if the key is not defined
+     * @return the value of a found key or the default value
+     */
+    public static String get(String key, String defaultValue) {
+        String value = getInstance().properties.getProperty(key);
+        return value == null ? defaultValue : value.trim();
+    }
+
+    /**
+     * Wrapper to grab optional numeric properties from holder
+     *
+     * @param key          the desired property name
+     * @param defaultValue the value to be used if the key is not defined or not a number
+     * @return the value of a found key or the default value
+     */
+    public static int getInt(String key, int defaultValue) {
+        String value = get(key, null);
+        if (StringUtils.isEmpty(value)) {
+            return defaultValue;
+        }
+
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            LOG.warn("Invalid number for " + key + ": " + value + ". Using " + defaultValue + " instead.");
+            return defaultValue;
+        }
+    }
+
+    /**
+     * Holder of the static instance. The JVM initializes this class exactly once on first access.
+     */
+    private static class InstanceHolder {
+        private static final ConfigurationUtil INSTANCE = new ConfigurationUtil();
+    }
 }
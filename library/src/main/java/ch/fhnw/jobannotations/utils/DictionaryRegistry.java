@@ -0,0 +1,316 @@
+package ch.fhnw.jobannotations.utils;
+
+import org.apache.log4j.Logger;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Registry of the dictionary files, which keeps their entries in memory and reloads them when a file changes. The
+ * directories of the requested and listened files are watched by a background thread if
+ * <code>configuration.dictionary.watch.enabled</code> is <code>true</code>. Changes are collected for
+ * <code>configuration.dictionary.watch.delay</code> milliseconds, so a file is reloaded once after it has been
+ * written.
+ * <p>
+ * Reloaded entries replace the previous list atomically, callers keep using the list they got before. Listeners are
+ * notified on the background thread after a file has changed, e.g. to rebuild a dictionary of its entries. Every
+ * reload increments the {@link #getVersion() version} of the registry, e.g. to invalidate results derived from the
+ * entries.
+ */
+public class DictionaryRegistry {
+
+    private final static Logger LOG = Logger.getLogger(DictionaryRegistry.class);
+
+    private final boolean watchEnabled;
+    private final long watchDelay;
+
+    // immutable maps by absolute path of the registered files, replaced on every change
+    private volatile Map<Path, List<String>> entries = new HashMap<>();
+    private volatile Map<Path, List<Consumer<Path>>> listeners = new HashMap<>();
+
+    // incremented whenever a registered file is reloaded
+    private final AtomicLong version = new AtomicLong();
+
+    // last modified time and size of the registered files, only used by the watcher thread and registration
+    private final Map<Path, String> signatures = new HashMap<>();
+    private final Map<WatchKey, Path> watchedDirectories = new HashMap<>();
+    private WatchService watchService;
+
+    private DictionaryRegistry() {
+        watchEnabled = ConfigurationUtil.get("configuration.dictionary.watch.enabled", "true").equalsIgnoreCase("true");
+        watchDelay = ConfigurationUtil.getInt("configuration.dictionary.watch.delay", 500);
+    }
+
+    private static class InstanceHolder {
+        private static final DictionaryRegistry INSTANCE = new DictionaryRegistry();
+    }
+
+    /**
+     * Returns the registry of this process.
+     *
+     * @return Dictionary registry
+     */
+    public static DictionaryRegistry getInstance() {
+        return InstanceHolder.INSTANCE;
+    }
+
+    /**
+     * Returns the non-empty lines of given file. The file is read on first access and whenever it changes, all other
+     * calls are served from memory.
+     *
+     * @param filename Dictionary file
+     * @return Unmodifiable list of entries, empty if the file could not be read
+     */
+    public List<String> getEntries(String filename) {
+        Path file = toPath(filename);
+        List<String> fileEntries = entries.get(file);
+        if (fileEntries == null) {
+            fileEntries = loadEntries(file);
+        }
+        return fileEntries;
+    }
+
+    /**
+     * Returns the version of the loaded entries. The version is incremented whenever a changed file is reloaded, after
+     * its entries have been published.
+     *
+     * @return Version of the entries
+     */
+    public long getVersion() {
+        return version.get();
+    }
+
+    /**
+     * Adds a listener, which is called with the path of given file after it has changed. The file is watched from now
+     * on.
+     *
+     * @param filename Dictionary file
+     * @param listener Listener to be called on the watcher thread
+     */
+    public synchronized void addChangeListener(String filename, Consumer<Path> listener) {
+        Path file = toPath(filename);
+        watch(file);
+
+        Map<Path, List<Consumer<Path>>> allListeners = new HashMap<>(listeners);
+        List<Consumer<Path>> fileListeners = new ArrayList<>();
+        if (allListeners.containsKey(file)) {
+            fileListeners.addAll(allListeners.get(file));
+        }
+        fileListeners.add(listener);
+        allListeners.put(file, fileListeners);
+        listeners = allListeners;
+    }
+
+    /**
+     * Ignores the change of given file made by this process, e.g. the compaction of a {@link LearningLog}, so the file
+     * is not reloaded by the watcher. The change is only ignored if the file has not been changed by others since it
+     * has been loaded, otherwise the changes of others would be lost.
+     *
+     * @param file              Absolute path of the changed file
+     * @param previousSignature Signature of the file before it has been read for the change
+     * @see #getSignature(Path)
+     */
+    synchronized void ignoreChange(Path file, String previousSignature) {
+        if (signatures.containsKey(file) && Objects.equals(signatures.get(file), previousSignature)) {
+            signatures.put(file, getSignature(file));
+        }
+    }
+
+    /**
+     * Loads the entries of given file and starts to watch it, unless it is loaded already.
+     *
+     * @param file Absolute path of the file
+     * @return Entries of the file
+     */
+    private synchronized List<String> loadEntries(Path file) {
+        List<String> fileEntries = entries.get(file);
+        if (fileEntries != null) {
+            return fileEntries;
+        }
+
+        watch(file);
+        fileEntries = readEntries(file, Collections.emptyList());
+        publishEntries(file, fileEntries);
+        return fileEntries;
+    }
+
+    /**
+     * Starts to watch given file, unless it is watched already. Registers its directory with the watch service and
+     * starts the watcher thread on first use.
+     *
+     * @param file Absolute path of the file
+     */
+    private synchronized void watch(Path file) {
+        if (signatures.containsKey(file)) {
+            return;
+        }
+        signatures.put(file, getSignature(file));
+
+        Path directory = file.getParent();
+        if (!watchEnabled || directory == null || watchedDirectories.containsValue(directory)) {
+            return;
+        }
+
+        try {
+            if (watchService == null) {
+                watchService = FileSystems.getDefault().newWatchService();
+                Thread watcherThread = new Thread(this::watchContinuously, "dictionary-watcher");
+                watcherThread.setDaemon(true);
+                watcherThread.start();
+            }
+
+            WatchKey key = directory.register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+                    StandardWatchEventKinds.ENTRY_MODIFY);
+            watchedDirectories.put(key, directory);
+            LOG.debug("Watching dictionaries in " + directory);
+
+        } catch (IOException e) {
+            LOG.error("Something went wrong while watching " + directory + ", changed dictionaries are not reloaded", e);
+        }
+    }
+
+    /**
+     * Waits for changes of the watched directories and reloads the changed files. Runs until the JVM exits.
+     */
+    private void watchContinuously() {
+        try {
+            while (true) {
+                Set<Path> changedFiles = new HashSet<>();
+                collectChangedFiles(watchService.take(), changedFiles);
+
+                // editors and copies write a file in several steps, wait until it is complete
+                WatchKey key;
+                while ((key = watchService.poll(watchDelay, TimeUnit.MILLISECONDS)) != null) {
+                    collectChangedFiles(key, changedFiles);
+                }
+
+                for (Path file : changedFiles) {
+                    reload(file);
+                }
+            }
+
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            LOG.debug("Stopped watching dictionaries");
+        }
+    }
+
+    /**
+     * Adds the registered files of the events of given key to given set and resets the key.
+     *
+     * @param key          Signalled key of a watched directory
+     * @param changedFiles Changed files
+     */
+    private synchronized void collectChangedFiles(WatchKey key, Set<Path> changedFiles) {
+        Path directory = watchedDirectories.get(key);
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (directory == null || event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                // events have been lost, check all files
+                changedFiles.addAll(signatures.keySet());
+                continue;
+            }
+
+            Path file = directory.resolve((Path) event.context());
+            if (signatures.containsKey(file)) {
+                changedFiles.add(file);
+            }
+        }
+        key.reset();
+    }
+
+    /**
+     * Reloads given file if its size or modification time has changed and notifies the listeners.
+     *
+     * @param file Registered file
+     */
+    private void reload(Path file) {
+        String signature = getSignature(file);
+        synchronized (this) {
+            if (signature == null || signature.equals(signatures.get(file))) {
+                return;
+            }
+            signatures.put(file, signature);
+        }
+
+        LOG.info("Reloading changed dictionary " + file);
+        List<String> previousEntries = entries.get(file);
+        if (previousEntries != null) {
+            publishEntries(file, readEntries(file, previousEntries));
+        }
+        version.incrementAndGet();
+
+        List<Consumer<Path>> fileListeners = listeners.get(file);
+        if (fileListeners == null) {
+            return;
+        }
+        for (Consumer<Path> listener : fileListeners) {
+            try {
+                listener.accept(file);
+            } catch (RuntimeException e) {
+                LOG.error("Something went wrong while reloading " + file, e);
+            }
+        }
+    }
+
+    private synchronized void publishEntries(Path file, List<String> fileEntries) {
+        Map<Path, List<String>> allEntries = new HashMap<>(entries);
+        allEntries.put(file, fileEntries);
+        entries = allEntries;
+    }
+
+    /**
+     * Reads the non-empty lines of given file.
+     *
+     * @param file            File to be read
+     * @param previousEntries Entries to be kept if the file could not be read
+     * @return Unmodifiable list of entries
+     */
+    private static List<String> readEntries(Path file, List<String> previousEntries) {
+        List<String> fileEntries = FileUtils.getFileContentAsList(file.toString());
+        if (fileEntries == null) {
+            return previousEntries;
+        }
+        return Collections.unmodifiableList(fileEntries);
+    }
+
+    /**
+     * Returns the size and modification time of given file.
+     *
+     * @param file File to be checked
+     * @return Signature of the file or null if it does not exist
+     */
+    static String getSignature(Path file) {
+        try {
+            BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+            return attributes.lastModifiedTime().toMillis() + ":" + attributes.size();
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    private static Path toPath(String filename) {
+        if (StringUtils.isEmpty(filename)) {
+            throw new IllegalArgumentException("Filename must not be empty!");
+        }
+        return Paths.get(filename).toAbsolutePath().normalize();
+    }
+}
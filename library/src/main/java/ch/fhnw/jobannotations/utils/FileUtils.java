@@ -6,7 +6,6 @@ import java.io.*;
 import java.nio.file.Files;
 import java.nio.file.Paths;
 import java.util.ArrayList;
-import java.util.HashSet;
 import java.util.List;
 import java.util.Properties;
 
@@ -46,7 +45,9 @@ public class FileUtils {
     }
 
     /**
-     * Write new data to train file. Duplicates will be deleted.
+     * Write new data to train file. The data is appended to the {@link LearningLog} of the train file, known entries
+     * are ignored. The log is merged into the train file in the background, so calls neither rewrite the train file
+     * nor block each other while reading it.
      *
      * @param data to learn
      */
@@ -62,45 +63,9 @@ public class FileUtils {
 
             if (quarantine) {
                 filename += ".quarantine";
-
-                // make sure quarantine exists
-                if (!Files.exists(Paths.get(filename))) {
-                    Files.createFile(Paths.get(filename));
-                }
-            }
-
-            // make sure duplicates get ignored
-            HashSet<String> newContents = new HashSet<>();
-
-            // reader to train or train.quarantine file
-            BufferedReader br = new BufferedReader(new FileReader(filename));
-
-            // read first line to process
-            String line = br.readLine();
-
-            // read content into set
-            while (line != null) {
-                newContents.add(line);
-
-                line = br.readLine();
             }
 
-            br.close();
-
-            PrintWriter pw = new PrintWriter(filename);
-
-            // persist content to file
-            for (String entry : newContents) {
-                pw.println(entry);
-            }
-
-            // print new data line
-            pw.println(data);
-
-            pw.flush();
-            pw.close();
-
-            LOG.debug("Saved found data in file " + filename);
+            LearningLog.forFile(filename).append(data);
 
         } catch (IOException e) {
             LOG.error("Something went wrong while learning new data.", e);
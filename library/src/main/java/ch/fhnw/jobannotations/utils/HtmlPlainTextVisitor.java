@@ -0,0 +1,534 @@
+package ch.fhnw.jobannotations.utils;
+
+import org.jsoup.helper.StringUtil;
+import org.jsoup.nodes.Comment;
+import org.jsoup.nodes.DataNode;
+import org.jsoup.nodes.Element;
+import org.jsoup.nodes.Node;
+import org.jsoup.nodes.TextNode;
+import org.jsoup.select.NodeVisitor;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.function.Predicate;
+
+/**
+ * Collects the plain text of visited nodes the same way as {@link HtmlUtils#getPlainTextFromHtml(String)} does with
+ * the pretty printed HTML of the nodes, but without serialising and parsing them again. The visitor passes three
+ * stages in one traversal:
+ * <ol>
+ * <li>The nodes are visited as the pretty printer would, producing its line breaks and indentation.</li>
+ * <li>The b-, br- and p-tags and the whitespace around them are rewritten as by the regular expressions of
+ * {@link HtmlUtils#getPlainTextFromHtml(String)}.</li>
+ * <li>The text is collected as the parser would have built the rewritten document and {@link Element#text()} would
+ * have read it: removed p-tags leave empty paragraphs behind, table parts outside of tables are dropped and the text of
+ * blocks is separated by spaces.</li>
+ * </ol>
+ * <p>
+ * Excluded nodes are treated as if they had been removed from the document. The stages follow the pretty printer and
+ * the tree builder of jsoup, HtmlUtilsTest compares the result with the regular expressions on sample postings and
+ * has to pass again after upgrading jsoup.
+ */
+class HtmlPlainTextVisitor implements NodeVisitor {
+
+    private static final String BREAK_PLACEHOLDER = "%BREAK%";
+
+    // elements the parser keeps in the head of a document
+    private static final Set<String> HEAD_TAGS = new HashSet<>(Arrays.asList(
+            "base", "basefont", "bgsound", "command", "head", "html", "link", "meta", "noframes", "noscript", "script",
+            "style", "title"));
+
+    // elements the parser ignores outside of tables
+    private static final Set<String> TABLE_PART_TAGS = new HashSet<>(Arrays.asList(
+            "caption", "col", "colgroup", "frame", "tbody", "td", "tfoot", "th", "thead", "tr"));
+
+    // elements limiting the search for an open paragraph
+    private static final Set<String> BUTTON_SCOPE_TAGS = new HashSet<>(Arrays.asList(
+            "applet", "button", "caption", "html", "marquee", "object", "table", "td", "th"));
+
+    // elements whose escaped text is not unescaped by the parser
+    private static final Set<String> RAW_TEXT_TAGS = new HashSet<>(Arrays.asList(
+            "iframe", "noembed", "noframes", "xmp"));
+
+    private final int indentAmount;
+    private final Predicate<Node> exclusion;
+
+    // pretty printer state
+    private boolean serialised;
+
+    // rewriting state
+    private final StringBuilder whitespace = new StringBuilder();
+    private Previous previous = Previous.NOTHING;
+    private boolean afterBoldTag;
+
+    // parser state
+    private final List<Element> openElements = new ArrayList<>();
+    private int openTableCount;
+    private boolean bodyStarted;
+    private final StringBuilder textRun = new StringBuilder();
+    private final StringBuilder text = new StringBuilder();
+
+    /**
+     * Constructs a visitor.
+     *
+     * @param indentAmount Indent amount of the pretty printer
+     * @param exclusion    Matches the nodes which are skipped together with their descendants
+     */
+    HtmlPlainTextVisitor(int indentAmount, Predicate<Node> exclusion) {
+        this.indentAmount = indentAmount;
+        this.exclusion = exclusion;
+    }
+
+    @Override
+    public void head(Node node, int depth) {
+        if (node instanceof TextNode) {
+            visitText((TextNode) node, depth);
+
+        } else if (node instanceof DataNode) {
+            // script and style data is not part of the text
+            serialised |= !((DataNode) node).getWholeData().isEmpty();
+
+        } else if (node instanceof Comment) {
+            indent(depth);
+            tag();
+            boundary();
+
+        } else if (node instanceof Element) {
+            visitStartTag((Element) node, depth);
+
+        } else {
+            // document type and xml declaration
+            serialised = true;
+            tag();
+            boundary();
+        }
+    }
+
+    @Override
+    public void tail(Node node, int depth) {
+        if (node instanceof Element) {
+            Element element = (Element) node;
+            boolean hasChildNodes = HtmlUtils.hasIncludedChildNodes(element, exclusion);
+            if (!hasChildNodes && element.tag().isSelfClosing()) {
+                return;
+            }
+
+            if (hasChildNodes && element.tag().formatAsBlock()) {
+                indent(depth);
+            }
+
+            if (isTag(element, "b")) {
+                boldEndTag();
+            } else if (isTag(element, "p") && element.attributes().size() == 0) {
+                tag();
+                closeParagraph();
+            } else {
+                tag();
+                endTag(element);
+            }
+        }
+    }
+
+    /**
+     * Finishes the traversal and returns the collected text.
+     *
+     * @return Plain text of the visited nodes
+     */
+    String getPlainText() {
+        // trailing whitespace is trimmed by the pretty printer
+        whitespace.setLength(0);
+        flushTextRun();
+        popOpenElements(0);
+
+        return text.toString().trim()
+                .replace('\u00A0', ' ')
+                .replace(BREAK_PLACEHOLDER, "\n");
+    }
+
+    /**
+     * Visits a text node like the pretty printer.
+     *
+     * @param textNode Text node
+     * @param depth    Depth of the node
+     */
+    private void visitText(TextNode textNode, int depth) {
+        Node parent = textNode.parent();
+        boolean parentFormatAsBlock = parent instanceof Element && ((Element) parent).tag().formatAsBlock();
+        if (parentFormatAsBlock && HtmlUtils.isFirstIncludedNode(textNode, exclusion) && !textNode.isBlank()) {
+            indent(depth);
+        }
+
+        String wholeText = textNode.getWholeText();
+        serialised |= !wholeText.isEmpty();
+
+        boolean normaliseWhitespace = parent instanceof Element && !preservesWhitespace((Element) parent);
+        // only text parsed into a raw text element stays escaped, the content of the visited element is parsed as body
+        boolean escape = parent instanceof Element && RAW_TEXT_TAGS.contains(getTagName((Element) parent))
+                && !openElements.isEmpty() && openElements.get(openElements.size() - 1) == parent;
+        boolean lastWasWhitespace = false;
+        for (int i = 0; i < wholeText.length(); i++) {
+            char c = wholeText.charAt(i);
+            if (normaliseWhitespace && StringUtil.isWhitespace(c)) {
+                if (!lastWasWhitespace) {
+                    text(' ');
+                }
+                lastWasWhitespace = true;
+                continue;
+            }
+
+            lastWasWhitespace = false;
+            if (escape) {
+                escapedText(c);
+            } else {
+                text(c);
+            }
+        }
+    }
+
+    /**
+     * Visits the start tag of an element like the pretty printer.
+     *
+     * @param element Element
+     * @param depth   Depth of the element
+     */
+    private void visitStartTag(Element element, int depth) {
+        Node parent = element.parent();
+        boolean parentFormatAsBlock = parent instanceof Element && ((Element) parent).tag().formatAsBlock();
+        if ((element.tag().formatAsBlock() || parentFormatAsBlock) && serialised) {
+            indent(depth);
+        }
+        serialised = true;
+
+        boolean hasAttributes = element.attributes().size() > 0;
+        if (isTag(element, "b") && !hasAttributes) {
+            boldStartTag();
+
+        } else if (element.tagName().regionMatches(true, 0, "br", 0, 2)) {
+            tag();
+            lineBreak();
+
+        } else if (isTag(element, "p") && !hasAttributes) {
+            tag();
+            lineBreak();
+
+        } else {
+            tag();
+            startTag(element);
+        }
+    }
+
+    /**
+     * Adds a line break and the indentation of the pretty printer.
+     *
+     * @param depth Depth of the indented node
+     */
+    private void indent(int depth) {
+        serialised = true;
+        text('\n');
+        for (int i = 0; i < depth * indentAmount; i++) {
+            text(' ');
+        }
+    }
+
+    // rewriting of b-tags and the whitespace around them
+
+    /**
+     * Adds a text character of the HTML.
+     *
+     * @param c Text character
+     */
+    private void text(char c) {
+        if (isRegexWhitespace(c)) {
+            whitespace.append(c);
+            return;
+        }
+
+        flushWhitespace();
+        textRun.append(c);
+        previous = Previous.TEXT;
+    }
+
+    /**
+     * Adds a text character of the HTML which the parser does not unescape.
+     *
+     * @param c Text character
+     */
+    private void escapedText(char c) {
+        switch (c) {
+            case '&':
+                appendText("&amp;");
+                break;
+            case '\u00A0':
+                appendText("&nbsp;");
+                break;
+            case '<':
+                appendText("&lt;");
+                break;
+            case '>':
+                appendText("&gt;");
+                break;
+            default:
+                text(c);
+        }
+    }
+
+    /**
+     * Adds text characters of the HTML.
+     *
+     * @param string Text characters
+     */
+    private void appendText(String string) {
+        for (int i = 0; i < string.length(); i++) {
+            text(string.charAt(i));
+        }
+    }
+
+    /**
+     * Marks a tag of the HTML, which is not a b-tag.
+     */
+    private void tag() {
+        flushWhitespace();
+        previous = Previous.TAG;
+    }
+
+    /**
+     * Replaces a b-start-tag and the whitespace around it by a space. A b-start-tag directly following another tag is
+     * preceded by a line break.
+     */
+    private void boldStartTag() {
+        whitespace.setLength(0);
+        if (previous == Previous.TAG) {
+            textRun.append(BREAK_PLACEHOLDER);
+            previous = Previous.BOLD_TAG_AFTER_TAG;
+        } else {
+            previous = Previous.TAG;
+        }
+        textRun.append(' ');
+        afterBoldTag = true;
+    }
+
+    /**
+     * Replaces a b-end-tag and the whitespace around it by a space.
+     */
+    private void boldEndTag() {
+        whitespace.setLength(0);
+        textRun.append(' ');
+        previous = Previous.TAG;
+        afterBoldTag = true;
+    }
+
+    /**
+     * Replaces a br- or p-tag by a line break.
+     */
+    private void lineBreak() {
+        textRun.append(BREAK_PLACEHOLDER);
+    }
+
+    /**
+     * Adds the pending whitespace, unless it is trimmed or follows a b-tag. Line breaks are replaced by placeholders.
+     */
+    private void flushWhitespace() {
+        if (previous != Previous.NOTHING && !afterBoldTag) {
+            for (int i = 0; i < whitespace.length(); i++) {
+                char c = whitespace.charAt(i);
+                if (c == '\n') {
+                    textRun.append(BREAK_PLACEHOLDER);
+                } else {
+                    textRun.append(c);
+                }
+            }
+        }
+
+        whitespace.setLength(0);
+        afterBoldTag = false;
+    }
+
+    // collecting the text as the parser would build the rewritten document
+
+    /**
+     * Handles a start tag which is kept in the rewritten HTML.
+     *
+     * @param element Started element
+     */
+    private void startTag(Element element) {
+        flushTextRun();
+
+        String tagName = getTagName(element);
+        if (!HEAD_TAGS.contains(tagName)) {
+            startBody();
+        }
+        if (tagName.equals("html") || tagName.equals("head") || tagName.equals("body")
+                || (TABLE_PART_TAGS.contains(tagName) && openTableCount == 0)) {
+            return;
+        }
+
+        if (element.isBlock()) {
+            appendBlockSeparator(text);
+        }
+        if (HtmlUtils.hasIncludedChildNodes(element, exclusion) || !element.tag().isSelfClosing()) {
+            openElements.add(element);
+            if (tagName.equals("table")) {
+                openTableCount++;
+            }
+        }
+    }
+
+    /**
+     * Handles an end tag which is kept in the rewritten HTML.
+     *
+     * @param element Ended element
+     */
+    private void endTag(Element element) {
+        flushTextRun();
+
+        for (int i = openElements.size() - 1; i >= 0; i--) {
+            if (openElements.get(i) == element) {
+                popOpenElements(i);
+                return;
+            }
+        }
+
+        if (isTag(element, "p")) {
+            closeParagraph();
+        }
+    }
+
+    /**
+     * Handles a p-end-tag. Without open paragraph, the parser creates an empty one.
+     */
+    private void closeParagraph() {
+        flushTextRun();
+
+        for (int i = openElements.size() - 1; i >= 0; i--) {
+            String tagName = getTagName(openElements.get(i));
+            if (tagName.equals("p")) {
+                popOpenElements(i);
+                return;
+            }
+            if (BUTTON_SCOPE_TAGS.contains(tagName)) {
+                break;
+            }
+        }
+
+        appendBlockSeparator(text);
+    }
+
+    /**
+     * Starts the body of the document, unless already done. Head elements at the beginning of the document do not
+     * start the body.
+     */
+    private void startBody() {
+        if (!bodyStarted) {
+            bodyStarted = true;
+            appendBlockSeparator(text);
+        }
+    }
+
+    /**
+     * Marks a node boundary without further effects on the text.
+     */
+    private void boundary() {
+        flushTextRun();
+    }
+
+    /**
+     * Closes the open elements from given index on.
+     *
+     * @param index Index of the first element to be closed
+     */
+    private void popOpenElements(int index) {
+        while (openElements.size() > index) {
+            Element element = openElements.remove(openElements.size() - 1);
+            if (getTagName(element).equals("table")) {
+                openTableCount--;
+            }
+        }
+    }
+
+    /**
+     * Adds the text collected since the last tag as text node of the current element.
+     */
+    private void flushTextRun() {
+        if (textRun.length() == 0) {
+            return;
+        }
+
+        String textNode = textRun.toString();
+        textRun.setLength(0);
+
+        // text of head elements does not start the body
+        int current = openElements.size() - 1;
+        if (!StringUtil.isBlank(textNode) && (current < 0 || !HEAD_TAGS.contains(getTagName(openElements.get(current))))) {
+            startBody();
+        }
+
+        appendNormalisedText(text, textNode, preservesWhitespace(current));
+    }
+
+    /**
+     * Checks whether the text of the open element at given index keeps its whitespace.
+     *
+     * @param index Index of the open element
+     * @return <code>true</code> if whitespace is kept, <code>false</code> if it is normalised
+     */
+    private boolean preservesWhitespace(int index) {
+        return index >= 0 && (openElements.get(index).tag().preserveWhitespace()
+                || index >= 1 && openElements.get(index - 1).tag().preserveWhitespace());
+    }
+
+    /**
+     * Appends text like {@link Element#text()}.
+     *
+     * @param accum              Collected text
+     * @param textNode           Text of a text node
+     * @param preserveWhitespace Whether whitespace is kept or normalised
+     */
+    private static void appendNormalisedText(StringBuilder accum, String textNode, boolean preserveWhitespace) {
+        if (preserveWhitespace) {
+            accum.append(textNode);
+        } else {
+            boolean lastCharIsWhitespace = accum.length() > 0 && accum.charAt(accum.length() - 1) == ' ';
+            StringUtil.appendNormalisedWhitespace(accum, textNode, lastCharIsWhitespace);
+        }
+    }
+
+    /**
+     * Appends the space separating the text of a block like {@link Element#text()}.
+     *
+     * @param accum Collected text
+     */
+    private static void appendBlockSeparator(StringBuilder accum) {
+        if (accum.length() > 0 && accum.charAt(accum.length() - 1) != ' ') {
+            accum.append(' ');
+        }
+    }
+
+    private static boolean preservesWhitespace(Element element) {
+        return element.tag().preserveWhitespace()
+                || element.parent() != null && element.parent().tag().preserveWhitespace();
+    }
+
+    private static boolean isRegexWhitespace(char c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r';
+    }
+
+    private static boolean isTag(Element element, String tagName) {
+        return element.tagName().equalsIgnoreCase(tagName);
+    }
+
+    private static String getTagName(Element element) {
+        return element.tagName().toLowerCase(Locale.ENGLISH);
+    }
+
+    /**
+     * Kind of the last non-whitespace part of the HTML. A b-start-tag preceded by a line break does not count as tag
+     * for the next b-start-tag, as the regular expression has consumed it already.
+     */
+    private enum Previous {
+        NOTHING, TEXT, TAG, BOLD_TAG_AFTER_TAG
+    }
+}
@@ -0,0 +1,258 @@
+package ch.fhnw.jobannotations.utils;
+
+import org.jsoup.helper.StringUtil;
+import org.jsoup.nodes.Attribute;
+import org.jsoup.nodes.Comment;
+import org.jsoup.nodes.DataNode;
+import org.jsoup.nodes.Document;
+import org.jsoup.nodes.Element;
+import org.jsoup.nodes.Entities;
+import org.jsoup.nodes.Node;
+import org.jsoup.nodes.TextNode;
+import org.jsoup.select.NodeVisitor;
+
+import java.nio.charset.CharsetEncoder;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+
+/**
+ * Serialises visited nodes the same way as {@link Node#outerHtml()} does, as if the excluded nodes had been removed
+ * from the document. The nodes are written with the indentation, escaping and self-closing tags of the given output
+ * settings. HtmlUtilsTest compares the result with the serialised copy on sample postings and has to pass again after
+ * upgrading jsoup.
+ */
+class HtmlSerialisingVisitor implements NodeVisitor {
+
+    private final Document.OutputSettings outputSettings;
+    private final Predicate<Node> exclusion;
+    private final CharsetEncoder encoder;
+    private final boolean xhtml;
+    private final StringBuilder html = new StringBuilder();
+
+    // characters which cannot be encoded with the charset of the output settings
+    private final Map<Integer, String> encodedCharacters = new HashMap<>();
+    private TextNode encodingNode;
+
+    /**
+     * Constructs a visitor.
+     *
+     * @param outputSettings Output settings of the serialised document
+     * @param exclusion      Matches the nodes which are skipped together with their descendants
+     */
+    HtmlSerialisingVisitor(Document.OutputSettings outputSettings, Predicate<Node> exclusion) {
+        this.outputSettings = outputSettings;
+        this.exclusion = exclusion;
+        encoder = outputSettings.charset().newEncoder();
+        xhtml = outputSettings.escapeMode() == Entities.EscapeMode.xhtml;
+    }
+
+    @Override
+    public void head(Node node, int depth) {
+        if (node instanceof TextNode) {
+            visitText((TextNode) node, depth);
+
+        } else if (node instanceof DataNode) {
+            html.append(((DataNode) node).getWholeData());
+
+        } else if (node instanceof Comment) {
+            if (outputSettings.prettyPrint()) {
+                indent(depth);
+            }
+            html.append("<!--").append(((Comment) node).getData()).append("-->");
+
+        } else if (node instanceof Element) {
+            visitStartTag((Element) node, depth);
+
+        } else {
+            // document type and xml declaration
+            html.append(node.outerHtml());
+        }
+    }
+
+    @Override
+    public void tail(Node node, int depth) {
+        if (node instanceof Element) {
+            Element element = (Element) node;
+            List<Node> childNodes = HtmlUtils.getIncludedChildNodes(element, exclusion);
+            if (childNodes.isEmpty() && element.tag().isSelfClosing()) {
+                return;
+            }
+
+            boolean outlineChildNodes = childNodes.size() > 1
+                    || childNodes.size() == 1 && !(childNodes.get(0) instanceof TextNode);
+            if (outputSettings.prettyPrint() && !childNodes.isEmpty()
+                    && (element.tag().formatAsBlock() || outputSettings.outline() && outlineChildNodes)) {
+                indent(depth);
+            }
+            html.append("</").append(element.tagName()).append('>');
+        }
+    }
+
+    /**
+     * Returns the serialised nodes.
+     *
+     * @return HTML of the visited nodes
+     */
+    String getHtml() {
+        return outputSettings.prettyPrint() ? html.toString().trim() : html.toString();
+    }
+
+    /**
+     * Writes a text node.
+     *
+     * @param textNode Text node
+     * @param depth    Depth of the node
+     */
+    private void visitText(TextNode textNode, int depth) {
+        Node parent = textNode.parent();
+        if (outputSettings.prettyPrint() && !textNode.isBlank()) {
+            boolean parentFormatAsBlock = parent instanceof Element && ((Element) parent).tag().formatAsBlock();
+            if (parentFormatAsBlock && HtmlUtils.isFirstIncludedNode(textNode, exclusion)
+                    || outputSettings.outline() && HtmlUtils.getIncludedChildNodes(parent, exclusion).size() > 1) {
+                indent(depth);
+            }
+        }
+
+        boolean normaliseWhitespace = outputSettings.prettyPrint() && parent instanceof Element
+                && !preservesWhitespace((Element) parent);
+        escape(textNode.getWholeText(), false, normaliseWhitespace);
+    }
+
+    /**
+     * Writes the start tag of an element.
+     *
+     * @param element Element
+     * @param depth   Depth of the element
+     */
+    private void visitStartTag(Element element, int depth) {
+        Element parent = element.parent();
+        if (outputSettings.prettyPrint() && html.length() > 0 && (element.tag().formatAsBlock()
+                || parent != null && parent.tag().formatAsBlock() || outputSettings.outline())) {
+            indent(depth);
+        }
+
+        html.append('<').append(element.tagName());
+        for (Attribute attribute : element.attributes()) {
+            html.append(' ').append(attribute.getKey());
+
+            // boolean attributes are collapsed by the html syntax only
+            boolean collapsed = outputSettings.syntax() == Document.OutputSettings.Syntax.html
+                    && attribute.html().equals(attribute.getKey());
+            if (!collapsed) {
+                html.append("=\"");
+                escape(attribute.getValue(), true, false);
+                html.append('"');
+            }
+        }
+
+        if (element.tag().isSelfClosing() && !HtmlUtils.hasIncludedChildNodes(element, exclusion)) {
+            if (outputSettings.syntax() == Document.OutputSettings.Syntax.html && element.tag().isEmpty()) {
+                html.append('>');
+            } else {
+                html.append(" />");
+            }
+        } else {
+            html.append('>');
+        }
+    }
+
+    /**
+     * Adds a line break and the indentation of the pretty printer.
+     *
+     * @param depth Depth of the indented node
+     */
+    private void indent(int depth) {
+        html.append('\n');
+        for (int i = 0; i < depth * outputSettings.indentAmount(); i++) {
+            html.append(' ');
+        }
+    }
+
+    /**
+     * Writes escaped text or attribute values like {@link Entities}.
+     *
+     * @param string              Text to be escaped
+     * @param inAttribute         Whether the text is an attribute value
+     * @param normaliseWhitespace Whether whitespace is normalised
+     */
+    private void escape(String string, boolean inAttribute, boolean normaliseWhitespace) {
+        boolean lastWasWhitespace = false;
+        int codePoint;
+        for (int offset = 0; offset < string.length(); offset += Character.charCount(codePoint)) {
+            codePoint = string.codePointAt(offset);
+            if (normaliseWhitespace) {
+                if (StringUtil.isWhitespace(codePoint)) {
+                    if (!lastWasWhitespace) {
+                        html.append(' ');
+                    }
+                    lastWasWhitespace = true;
+                    continue;
+                }
+                lastWasWhitespace = false;
+            }
+
+            switch (codePoint) {
+                case '&':
+                    html.append("&amp;");
+                    break;
+                case 0xA0:
+                    html.append(xhtml ? "&#xa0;" : "&nbsp;");
+                    break;
+                case '<':
+                    html.append(!inAttribute || xhtml ? "&lt;" : "<");
+                    break;
+                case '>':
+                    html.append(!inAttribute ? "&gt;" : ">");
+                    break;
+                case '"':
+                    html.append(inAttribute ? "&quot;" : "\"");
+                    break;
+                default:
+                    appendEncoded(codePoint);
+            }
+        }
+    }
+
+    /**
+     * Writes a character, encoded as entity if the charset of the output settings cannot encode it.
+     *
+     * @param codePoint Character
+     */
+    private void appendEncoded(int codePoint) {
+        String character = new String(Character.toChars(codePoint));
+        if (canEncode(codePoint, character)) {
+            html.append(character);
+            return;
+        }
+
+        // let jsoup choose between named and numeric entity
+        String encoded = encodedCharacters.get(codePoint);
+        if (encoded == null) {
+            if (encodingNode == null) {
+                Document document = new Document("");
+                document.outputSettings(outputSettings.clone().prettyPrint(false));
+                encodingNode = new TextNode("", "");
+                document.appendChild(encodingNode);
+            }
+            encodingNode.text(character);
+            encoded = encodingNode.outerHtml();
+            encodedCharacters.put(codePoint, encoded);
+        }
+        html.append(encoded);
+    }
+
+    private boolean canEncode(int codePoint, String character) {
+        String charsetName = encoder.charset().name();
+        if (charsetName.equals("US-ASCII")) {
+            return codePoint < 0x80;
+        }
+        return charsetName.startsWith("UTF-") || encoder.canEncode(character);
+    }
+
+    private static boolean preservesWhitespace(Element element) {
+        return element.tag().preserveWhitespace()
+                || element.parent() != null && element.parent().tag().preserveWhitespace();
+    }
+}
@@ -1,6 +1,18 @@
 package ch.fhnw.jobannotations.utils;
 
 import org.jsoup.Jsoup;
+import org.jsoup.helper.StringUtil;
+import org.jsoup.nodes.Document;
+import org.jsoup.nodes.Element;
+import org.jsoup.nodes.Node;
+import org.jsoup.nodes.TextNode;
+import org.jsoup.select.NodeTraversor;
+import org.jsoup.select.NodeVisitor;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Predicate;
+import java.util.regex.Pattern;
 
 /**
  * Utility class providing utility methods for HTML String handling.
@@ -8,10 +20,137 @@ import org.jsoup.Jsoup;
  * @author Hoang Tran <hoang.tran@students.fhnw.ch>
  */
 public class HtmlUtils {
+
+    // patterns of the plain text extraction from HTML
+    private static final Pattern PATTERN_B_TAG_AFTER_TAG = Pattern.compile("(?i)>\\s*\\n*\\s*<b>");
+    private static final Pattern PATTERN_B_TAG = Pattern.compile("(?i)\\s*\\n*\\s*</?b>\\s*");
+    private static final Pattern PATTERN_BR_TAG = Pattern.compile("(?i)(<br[^>]*>|\\n)");
+    private static final Pattern PATTERN_P_TAG = Pattern.compile("(?i)(<p>|\\n)");
+    private static final String BREAK_TAG_PLACEHOLDER = "%BREAK%";
+
     private HtmlUtils() {
         // util class
     }
 
+    /**
+     * Extracts plain text from the content of given element. The result is the same as
+     * <code>getPlainTextFromHtml(element.html())</code>, but the nodes are traversed once instead of serialising them,
+     * rewriting the HTML and parsing it again.
+     *
+     * @param element Element to be used for plain text extraction
+     * @return Extracted plain text
+     */
+    public static String getPlainText(Element element) {
+        return getPlainText(element, node -> false);
+    }
+
+    /**
+     * Extracts plain text from the content of given element without the excluded nodes. The result is the same as for
+     * a copy of the element from which the excluded nodes have been removed, but no copy is made.
+     *
+     * @param element   Element to be used for plain text extraction
+     * @param exclusion Matches the nodes which are skipped together with their descendants
+     * @return Extracted plain text
+     */
+    public static String getPlainText(Element element, Predicate<Node> exclusion) {
+        Document.OutputSettings outputSettings = getOutputSettings(element);
+        if (!outputSettings.prettyPrint() || outputSettings.outline() || !element.dataNodes().isEmpty()) {
+            // line breaks depend on the pretty printer, script data is parsed as HTML
+            return getPlainTextFromHtml(getHtml(element, exclusion));
+        }
+
+        HtmlPlainTextVisitor visitor = new HtmlPlainTextVisitor(outputSettings.indentAmount(), exclusion);
+        traverseChildNodes(element, exclusion, visitor);
+        return visitor.getPlainText();
+    }
+
+    /**
+     * Serialises the content of given element without the excluded nodes. The result is the same as
+     * {@link Element#html()} of a copy of the element from which the excluded nodes have been removed, but no copy is
+     * made.
+     *
+     * @param element   Element to be serialised
+     * @param exclusion Matches the nodes which are skipped together with their descendants
+     * @return HTML of the element content
+     * @see #getCopy(Element, Predicate)
+     */
+    public static String getHtml(Element element, Predicate<Node> exclusion) {
+        HtmlSerialisingVisitor visitor = new HtmlSerialisingVisitor(getOutputSettings(element), exclusion);
+        traverseChildNodes(element, exclusion, visitor);
+        return visitor.getHtml();
+    }
+
+    /**
+     * Copies given element without the excluded nodes. Like {@link Element#clone()}, the copy of an element is not
+     * attached to a document.
+     *
+     * @param element   Element to be copied
+     * @param exclusion Matches the nodes which are removed together with their descendants
+     * @param <T>       Type of the element
+     * @return Copy of the element without the excluded nodes
+     */
+    public static <T extends Element> T getCopy(T element, Predicate<Node> exclusion) {
+        @SuppressWarnings("unchecked")
+        T copy = (T) element.clone();
+        removeExcludedNodes(element, copy, exclusion);
+        return copy;
+    }
+
+    /**
+     * Removes the copies of the excluded descendants of given node from given copy of the node.
+     *
+     * @param node      Original node
+     * @param copy      Copy of the node
+     * @param exclusion Matches the excluded nodes of the original
+     */
+    private static void removeExcludedNodes(Node node, Node copy, Predicate<Node> exclusion) {
+        for (int i = node.childNodeSize() - 1; i >= 0; i--) {
+            Node childNode = node.childNode(i);
+            if (exclusion.test(childNode)) {
+                copy.childNode(i).remove();
+            } else {
+                removeExcludedNodes(childNode, copy.childNode(i), exclusion);
+            }
+        }
+    }
+
+    /**
+     * Returns the text of given element and its descendants without the excluded nodes. The result is the same as
+     * {@link Element#text()} of a copy of the element from which the excluded nodes have been removed.
+     *
+     * @param element   Element whose text is returned
+     * @param exclusion Matches the nodes which are skipped together with their descendants
+     * @return Normalised text
+     */
+    public static String getText(Element element, Predicate<Node> exclusion) {
+        StringBuilder text = new StringBuilder();
+        traverseChildNodes(element, exclusion, new NodeVisitor() {
+            @Override
+            public void head(Node node, int depth) {
+                if (node instanceof TextNode) {
+                    TextNode textNode = (TextNode) node;
+                    if (preservesWhitespace(textNode.parent())) {
+                        text.append(textNode.getWholeText());
+                    } else {
+                        StringUtil.appendNormalisedWhitespace(text, textNode.getWholeText(), endsWithSpace(text));
+                    }
+                } else if (node instanceof Element) {
+                    Element childElement = (Element) node;
+                    if (text.length() > 0 && (childElement.isBlock() || childElement.tagName().equals("br"))
+                            && !endsWithSpace(text)) {
+                        text.append(' ');
+                    }
+                }
+            }
+
+            @Override
+            public void tail(Node node, int depth) {
+                // text is collected in head
+            }
+        });
+        return text.toString().trim();
+    }
+
     /**
      * Extracts plain text from given HTML String.
      *
@@ -20,27 +159,134 @@ public class HtmlUtils {
      */
     public static String getPlainTextFromHtml(String html) {
         // keep line breaks of b-tags after other tags
-        html = html.replaceAll("(?i)>\\s*\\n*\\s*<b>", "><br><b>");
+        html = PATTERN_B_TAG_AFTER_TAG.matcher(html).replaceAll("><br><b>");
 
         // replace b-tags with space to prevent line breaks
-        html = html.replaceAll("(?i)\\s*\\n*\\s*</?b>\\s*", " ");
+        html = PATTERN_B_TAG.matcher(html).replaceAll(" ");
 
         // replace br-tags and line breaks with placeholder
-        String breakTagPlaceholder = "%BREAK%";
-        html = html.replaceAll("(?i)(<br[^>]*>|\\n)", breakTagPlaceholder);
+        html = PATTERN_BR_TAG.matcher(html).replaceAll(BREAK_TAG_PLACEHOLDER);
 
         // replace p-tags with placeholder
-        html = html.replaceAll("(?i)(<p>|\\n)", breakTagPlaceholder);
+        html = PATTERN_P_TAG.matcher(html).replaceAll(BREAK_TAG_PLACEHOLDER);
 
         // clean html
         html = Jsoup.parse(html).text();
 
         // replace non-breaking space with normal whitespace
-        html = html.replaceAll("\\u00A0", " ");
+        html = html.replace('\u00A0', ' ');
 
         // replace placeholder with real line breaks
-        html = html.replaceAll(breakTagPlaceholder, "\n");
+        html = html.replace(BREAK_TAG_PLACEHOLDER, "\n");
 
         return html;
     }
+
+    /**
+     * Traverses the child nodes of given element depth-first, skipping the excluded nodes and their descendants. The
+     * child nodes are visited at depth 0 like by {@link NodeTraversor}.
+     *
+     * @param element   Element whose child nodes are traversed
+     * @param exclusion Matches the nodes which are skipped together with their descendants
+     * @param visitor   Visitor of the traversed nodes
+     */
+    static void traverseChildNodes(Element element, Predicate<Node> exclusion, NodeVisitor visitor) {
+        Node node = getNextIncludedNode(element.childNodes(), 0, exclusion);
+        int depth = 0;
+        while (node != null) {
+            visitor.head(node, depth);
+            Node firstChild = getNextIncludedNode(node.childNodes(), 0, exclusion);
+            if (firstChild != null) {
+                node = firstChild;
+                depth++;
+                continue;
+            }
+
+            // ascend until a node with a next sibling is found
+            Node nextSibling;
+            while (true) {
+                visitor.tail(node, depth);
+                nextSibling = getNextIncludedNode(node.parent().childNodes(), node.siblingIndex() + 1, exclusion);
+                if (nextSibling != null || depth == 0) {
+                    break;
+                }
+                node = node.parent();
+                depth--;
+            }
+            node = nextSibling;
+        }
+    }
+
+    /**
+     * Returns the child nodes of given node which are not excluded.
+     *
+     * @param node      Parent node
+     * @param exclusion Matches the excluded nodes
+     * @return Included child nodes
+     */
+    static List<Node> getIncludedChildNodes(Node node, Predicate<Node> exclusion) {
+        List<Node> childNodes = new ArrayList<>(node.childNodeSize());
+        for (Node childNode : node.childNodes()) {
+            if (!exclusion.test(childNode)) {
+                childNodes.add(childNode);
+            }
+        }
+        return childNodes;
+    }
+
+    /**
+     * Checks whether given node has child nodes which are not excluded.
+     *
+     * @param node      Parent node
+     * @param exclusion Matches the excluded nodes
+     * @return <code>true</code> if at least one child node is included, <code>false</code> otherwise
+     */
+    static boolean hasIncludedChildNodes(Node node, Predicate<Node> exclusion) {
+        return getNextIncludedNode(node.childNodes(), 0, exclusion) != null;
+    }
+
+    /**
+     * Checks whether given node is the first of its siblings which is not excluded.
+     *
+     * @param node      Included node
+     * @param exclusion Matches the excluded nodes
+     * @return <code>true</code> if all preceding siblings are excluded, <code>false</code> otherwise
+     */
+    static boolean isFirstIncludedNode(Node node, Predicate<Node> exclusion) {
+        Node previousSibling = node.previousSibling();
+        while (previousSibling != null) {
+            if (!exclusion.test(previousSibling)) {
+                return false;
+            }
+            previousSibling = previousSibling.previousSibling();
+        }
+        return true;
+    }
+
+    private static Node getNextIncludedNode(List<Node> nodes, int index, Predicate<Node> exclusion) {
+        for (int i = index; i < nodes.size(); i++) {
+            if (!exclusion.test(nodes.get(i))) {
+                return nodes.get(i);
+            }
+        }
+        return null;
+    }
+
+    private static Document.OutputSettings getOutputSettings(Element element) {
+        Document ownerDocument = element.ownerDocument();
+        return ownerDocument != null ? ownerDocument.outputSettings() : new Document("").outputSettings();
+    }
+
+    private static boolean preservesWhitespace(Node node) {
+        if (!(node instanceof Element)) {
+            return false;
+        }
+        Element element = (Element) node;
+        return element.tag().preserveWhitespace()
+                || element.parent() != null && element.parent().tag().preserveWhitespace();
+    }
+
+    private static boolean endsWithSpace(StringBuilder text) {
+        return text.length() > 0 && text.charAt(text.length() - 1) == ' ';
+    }
 }
@@ -0,0 +1,57 @@
+package ch.fhnw.jobannotations.utils;
+
+import java.util.function.Supplier;
+
+/**
+ * Thread-safe lazily computed value. The value is computed by the given supplier on first access and returned by all
+ * later accesses. Concurrent first accesses wait until the value has been computed once. If the supplier fails, the
+ * next access computes the value again.
+ *
+ * @param <T> Type of the value, may be null
+ */
+public class Lazy<T> implements Supplier<T> {
+
+    private Supplier<T> supplier;
+    private T value;
+    private volatile boolean initialized;
+
+    /**
+     * Constructs a lazy value.
+     *
+     * @param supplier Computes the value on first access
+     */
+    public Lazy(Supplier<T> supplier) {
+        this.supplier = supplier;
+    }
+
+    /**
+     * Returns the value, computes it if not done yet.
+     *
+     * @return Computed value
+     */
+    @Override
+    public T get() {
+        if (!initialized) {
+            synchronized (this) {
+                if (!initialized) {
+                    value = supplier.get();
+                    initialized = true;
+
+                    // release everything the supplier references
+                    supplier = null;
+                }
+            }
+        }
+
+        return value;
+    }
+
+    /**
+     * Checks whether the value has been computed already, without computing it.
+     *
+     * @return <code>true</code> if the value has been computed, <code>false</code> otherwise
+     */
+    public boolean isInitialized() {
+        return initialized;
+    }
+}
@@ -0,0 +1,321 @@
+package ch.fhnw.jobannotations.utils;
+
+import org.apache.log4j.Logger;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Append-only log of the entries learned for a train file. Learned entries are appended to a log file next to the train
+ * file instead of rewriting the train file, duplicates are skipped by an in-memory index of all known entries. The log
+ * is merged into the sorted train file by a background thread every <code>configuration.ml.compaction.interval</code>
+ * seconds.
+ * <p>
+ * Appending and compaction hold an exclusive lock of the log file, so several threads and processes may learn into the
+ * same train file. The index only knows the entries of the own process, duplicates appended by other processes are
+ * removed by the next compaction. The train file is replaced atomically, readers see either the old or the new file.
+ * The {@link DictionaryRegistry} reloads a compacted train file unless the log only contained entries appended by this
+ * process.
+ * <p>
+ * If the train file has an up to date {@link BinaryDictionary}, its entries are looked up in the mapped file instead of
+ * being loaded into the index, and the binary dictionary is rewritten by every compaction.
+ */
+public class LearningLog {
+
+    private final static Logger LOG = Logger.getLogger(LearningLog.class);
+
+    public static final String LOG_FILE_SUFFIX = ".log";
+
+    private static final String COMPACTION_FILE_SUFFIX = ".compaction";
+    private static final Map<Path, LearningLog> LEARNING_LOGS = new ConcurrentHashMap<>();
+    private static final ScheduledExecutorService COMPACTION_EXECUTOR = createCompactionExecutor();
+
+    private final Path trainFile;
+    private final Path logFile;
+
+    // entries of the train file and the log, loaded on first use, without the entries of the binary dictionary
+    private volatile Set<String> index;
+    private volatile BinaryDictionary binaryDictionary;
+    private FileChannel logChannel;
+
+    // entries appended to the log by this process since they have been compacted, guarded by this
+    private final Set<String> appendedEntries = new HashSet<>();
+
+    private LearningLog(Path trainFile) {
+        this.trainFile = trainFile;
+        this.logFile = getLogFile(trainFile);
+    }
+
+    /**
+     * Returns the learning log of given train file. All callers of a process share the same instance.
+     *
+     * @param filename Train or quarantine file
+     * @return Learning log of the file
+     */
+    public static LearningLog forFile(String filename) {
+        Path trainFile = Paths.get(filename).toAbsolutePath().normalize();
+        return LEARNING_LOGS.computeIfAbsent(trainFile, LearningLog::new);
+    }
+
+    /**
+     * Returns the log file of given train file, which contains the entries learned since the last compaction.
+     *
+     * @param trainFile Train or quarantine file
+     * @return Log file next to the train file
+     */
+    public static Path getLogFile(Path trainFile) {
+        return trainFile.resolveSibling(trainFile.getFileName() + LOG_FILE_SUFFIX);
+    }
+
+    /**
+     * Merges the logs of all train files learned by this process into their train files.
+     */
+    public static void compactAll() {
+        for (LearningLog learningLog : LEARNING_LOGS.values()) {
+            try {
+                learningLog.compact();
+            } catch (IOException e) {
+                LOG.error("Something went wrong while compacting " + learningLog.logFile, e);
+            }
+        }
+    }
+
+    /**
+     * Appends the lines of given data to the log, unless they are empty or already known.
+     *
+     * @param data Learned data, one entry per line
+     * @throws IOException if the log could not be written
+     */
+    public void append(String data) throws IOException {
+        Set<String> knownEntries = getIndex();
+        List<String> newEntries = new ArrayList<>();
+        StringBuilder lines = new StringBuilder();
+        for (String entry : data.split("\n")) {
+            if (!entry.isEmpty() && !isInBinaryDictionary(entry) && knownEntries.add(entry)) {
+                newEntries.add(entry);
+                lines.append(entry).append(System.lineSeparator());
+            }
+        }
+
+        if (newEntries.isEmpty()) {
+            return;
+        }
+
+        ByteBuffer buffer = StandardCharsets.UTF_8.encode(lines.toString());
+        try {
+            synchronized (this) {
+                FileChannel channel = getLogChannel();
+                try (FileLock ignored = channel.lock()) {
+                    // all writers hold the lock, so the end of the file does not move while writing
+                    long position = channel.size();
+                    while (buffer.hasRemaining()) {
+                        position += channel.write(buffer, position);
+                    }
+                    channel.force(false);
+                }
+                appendedEntries.addAll(newEntries);
+            }
+
+        } catch (IOException e) {
+            // entries are learned again by the next call
+            knownEntries.removeAll(newEntries);
+            throw e;
+        }
+        LOG.debug("Saved found data in file " + logFile);
+    }
+
+    /**
+     * Merges the log into the train file. The entries of both files are sorted and deduplicated, the train file is
+     * replaced and the log is truncated. The replaced train file is only reloaded by the {@link DictionaryRegistry} if
+     * the log contained entries of other processes or of a previous run.
+     *
+     * @throws IOException if the files could not be read or written
+     */
+    public synchronized void compact() throws IOException {
+        if (!Files.exists(logFile)) {
+            return;
+        }
+
+        FileChannel channel = getLogChannel();
+        try (FileLock ignored = channel.lock()) {
+            List<String> logEntries = readLines(channel);
+            if (logEntries.isEmpty()) {
+                return;
+            }
+
+            Set<String> entries = new TreeSet<>(logEntries);
+            String trainFileSignature = DictionaryRegistry.getSignature(trainFile);
+            if (Files.exists(trainFile)) {
+                entries.addAll(readLines(trainFile));
+            }
+
+            Path compactionFile = trainFile.resolveSibling(trainFile.getFileName() + COMPACTION_FILE_SUFFIX);
+            try (BufferedWriter writer = Files.newBufferedWriter(compactionFile, StandardCharsets.UTF_8)) {
+                for (String entry : entries) {
+                    writer.write(entry);
+                    writer.newLine();
+                }
+            }
+            try {
+                Files.move(compactionFile, trainFile, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(compactionFile, trainFile, StandardCopyOption.REPLACE_EXISTING);
+            }
+            // entries learned by this process are in its dictionaries already, entries of others have to be reloaded
+            if (appendedEntries.containsAll(logEntries)) {
+                DictionaryRegistry.getInstance().ignoreChange(trainFile, trainFileSignature);
+            }
+            appendedEntries.removeAll(logEntries);
+
+            channel.truncate(0);
+            channel.force(true);
+            LOG.debug("Compacted " + logEntries.size() + " learned entries into " + trainFile);
+
+            Path binaryFile = BinaryDictionary.getBinaryFile(trainFile);
+            if (Files.exists(binaryFile)) {
+                // written after the train file, so it is newer and stays in use
+                BinaryDictionary.write(entries, binaryFile);
+                if (binaryDictionary != null) {
+                    binaryDictionary = BinaryDictionary.open(binaryFile);
+                }
+            }
+        }
+    }
+
+    /**
+     * Checks whether given entry is contained in the binary dictionary of the train file.
+     *
+     * @param entry Learned entry
+     * @return <code>true</code> if the train file has a binary dictionary containing the entry
+     */
+    private boolean isInBinaryDictionary(String entry) {
+        BinaryDictionary dictionary = binaryDictionary;
+        return dictionary != null && dictionary.contains(entry);
+    }
+
+    /**
+     * Returns the index of known entries. Loads the entries of the train file and the log on first access, the entries
+     * of an up to date binary dictionary are looked up in the mapped file instead.
+     *
+     * @return Concurrent set of known entries
+     * @throws IOException if the files could not be read
+     */
+    private Set<String> getIndex() throws IOException {
+        if (index == null) {
+            synchronized (this) {
+                if (index == null) {
+                    Set<String> entries = Collections.newSetFromMap(new ConcurrentHashMap<>());
+                    if (BinaryDictionary.isUpToDate(trainFile)) {
+                        binaryDictionary = BinaryDictionary.open(BinaryDictionary.getBinaryFile(trainFile));
+                    } else if (Files.exists(trainFile)) {
+                        entries.addAll(readLines(trainFile));
+                    }
+                    if (Files.exists(logFile)) {
+                        entries.addAll(readLines(logFile));
+                    }
+                    index = entries;
+                }
+            }
+        }
+        return index;
+    }
+
+    /**
+     * Returns the channel of the log file, which is kept open to lock and append without reopening the file.
+     *
+     * @return Channel of the log file
+     * @throws IOException if the log file could not be opened
+     */
+    private synchronized FileChannel getLogChannel() throws IOException {
+        if (logChannel == null || !logChannel.isOpen()) {
+            logChannel = FileChannel.open(logFile, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        }
+        return logChannel;
+    }
+
+    /**
+     * Reads all non-empty lines of given channel.
+     *
+     * @param channel Channel of a text file
+     * @return Lines without line terminators
+     * @throws IOException if the channel could not be read
+     */
+    private static List<String> readLines(FileChannel channel) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate((int) channel.size());
+        long position = 0;
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, position);
+            if (read < 0) {
+                break;
+            }
+            position += read;
+        }
+        buffer.flip();
+
+        List<String> lines = new ArrayList<>();
+        for (String line : PatternRegistry.LINE_BREAK.split(StandardCharsets.UTF_8.decode(buffer))) {
+            line = StringUtils.removeEnd(line, "\r");
+            if (!line.isEmpty()) {
+                lines.add(line);
+            }
+        }
+        return lines;
+    }
+
+    /**
+     * Reads all non-empty lines of given file.
+     *
+     * @param file Text file
+     * @return Lines without line terminators
+     * @throws IOException if the file could not be read
+     */
+    private static List<String> readLines(Path file) throws IOException {
+        List<String> lines = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(Files.newInputStream(file), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (!line.isEmpty()) {
+                    lines.add(line);
+                }
+            }
+        }
+        return lines;
+    }
+
+    private static ScheduledExecutorService createCompactionExecutor() {
+        ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "learning-log-compaction");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        int interval = ConfigurationUtil.getInt("configuration.ml.compaction.interval", 60);
+        if (interval > 0) {
+            executor.scheduleWithFixedDelay(LearningLog::compactAll, interval, interval, TimeUnit.SECONDS);
+        }
+        return executor;
+    }
+}
@@ -0,0 +1,123 @@
+package ch.fhnw.jobannotations.utils;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Thread-safe cache with a fixed max number of entries. If the cache is full, the least recently used entry is evicted.
+ * Hits and misses are counted to be able to size the cache.
+ *
+ * @param <K> Type of the keys
+ * @param <V> Type of the cached values
+ */
+public class LruCache<K, V> {
+
+    private final int maxSize;
+    private final Map<K, V> entries;
+    private final AtomicLong hitCount = new AtomicLong();
+    private final AtomicLong missCount = new AtomicLong();
+
+    /**
+     * Constructs a cache.
+     *
+     * @param maxSize Max number of entries, 0 to disable caching
+     */
+    public LruCache(int maxSize) {
+        this.maxSize = Math.max(0, maxSize);
+        this.entries = new LinkedHashMap<K, V>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+                return size() > LruCache.this.maxSize;
+            }
+        };
+    }
+
+    /**
+     * Returns the cached value of given key.
+     *
+     * @param key Key of the value
+     * @return Cached value or null if nothing cached
+     */
+    public V get(K key) {
+        V value;
+        synchronized (entries) {
+            value = entries.get(key);
+        }
+
+        if (value == null) {
+            missCount.incrementAndGet();
+        } else {
+            hitCount.incrementAndGet();
+        }
+        return value;
+    }
+
+    /**
+     * Caches given value. Evicts the least recently used entry if the cache is full.
+     *
+     * @param key   Key of the value
+     * @param value Value to be cached
+     */
+    public void put(K key, V value) {
+        if (maxSize == 0) {
+            return;
+        }
+
+        synchronized (entries) {
+            entries.put(key, value);
+        }
+    }
+
+    /**
+     * Removes all entries. Hit and miss counters are kept.
+     */
+    public void clear() {
+        synchronized (entries) {
+            entries.clear();
+        }
+    }
+
+    /**
+     * Returns the current number of entries.
+     *
+     * @return Number of cached entries
+     */
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    /**
+     * Returns the max number of entries.
+     *
+     * @return Max number of entries
+     */
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    /**
+     * Returns the number of lookups that have been answered from the cache.
+     *
+     * @return Number of hits
+     */
+    public long getHitCount() {
+        return hitCount.get();
+    }
+
+    /**
+     * Returns the number of lookups that could not be answered from the cache.
+     *
+     * @return Number of misses
+     */
+    public long getMissCount() {
+        return missCount.get();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("[size=%d, maxSize=%d, hits=%d, misses=%d]", size(), maxSize, getHitCount(), getMissCount());
+    }
+}
@@ -0,0 +1,219 @@
+package ch.fhnw.jobannotations.utils;
+
+import com.aliasi.dict.DictionaryEntry;
+import com.aliasi.dict.TrieDictionary;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Dictionary that learns new entries without rebuilding its base dictionary. Learned entries are added to a small
+ * delta, lookups consult the base and the delta. The delta is merged into a new base as soon as it is full or from
+ * time to time, see {@link NlpHelper#mergeDictionaries()}.
+ * <p>
+ * Base and delta are immutable snapshots, changes replace them by extended copies. Callers may use a snapshot while
+ * it is replaced concurrently. The delta consists of the entries of completed batches and the latest batch, so an add
+ * only copies the latest batch and a completed batch is copied into the other entries once.
+ */
+public class ManagedDictionary {
+
+    private static final int DELTA_BATCH_SIZE = 64;
+
+    private final String category;
+    private final int maxDeltaSize;
+    private volatile TrieDictionary<String> base;
+
+    // immutable list of the non-empty dictionaries of the delta, published after every change
+    private volatile List<TrieDictionary<String>> delta = Collections.emptyList();
+    private volatile int deltaSize;
+
+    // guarded by this
+    private TrieDictionary<String> batchedEntries = new TrieDictionary<>();
+    private TrieDictionary<String> latestBatch = new TrieDictionary<>();
+    private int latestBatchSize;
+
+    /**
+     * Constructs a managed dictionary.
+     *
+     * @param base         Base dictionary, must not be modified afterwards
+     * @param category     Category of learned entries
+     * @param maxDeltaSize Number of learned entries after which the delta is full
+     */
+    public ManagedDictionary(TrieDictionary<String> base, String category, int maxDeltaSize) {
+        this.base = base;
+        this.category = category;
+        this.maxDeltaSize = maxDeltaSize;
+    }
+
+    /**
+     * Adds given phrase to the delta, unless it is already known.
+     *
+     * @param phrase Learned phrase
+     * @return <code>true</code> if the phrase has been added, <code>false</code> if it was known
+     */
+    public synchronized boolean add(String phrase) {
+        if (StringUtils.isEmpty(phrase) || !base.phraseEntryList(phrase).isEmpty() || isDeltaEntry(phrase)) {
+            return false;
+        }
+
+        TrieDictionary<String> extendedBatch = copy(latestBatch);
+        extendedBatch.addEntry(new DictionaryEntry<>(phrase, category));
+        if (++latestBatchSize < DELTA_BATCH_SIZE) {
+            latestBatch = extendedBatch;
+        } else {
+            TrieDictionary<String> extendedEntries = copy(batchedEntries);
+            for (DictionaryEntry<String> entry : extendedBatch) {
+                extendedEntries.addEntry(entry);
+            }
+            batchedEntries = extendedEntries;
+            latestBatch = new TrieDictionary<>();
+            latestBatchSize = 0;
+        }
+
+        publishDelta();
+        deltaSize++;
+        return true;
+    }
+
+    /**
+     * Checks whether given phrase has been learned since the last merge.
+     *
+     * @param phrase Phrase to be looked up
+     * @return <code>true</code> if the phrase is an entry of the delta
+     */
+    public boolean isDeltaEntry(String phrase) {
+        for (TrieDictionary<String> dictionary : delta) {
+            if (!dictionary.phraseEntryList(phrase).isEmpty()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Creates a new base containing the entries of the current base and delta. The dictionary is not changed until
+     * the new base is published by {@link #replaceBase(TrieDictionary)}, so it may be indexed before. The merged base
+     * of a {@link MappedDictionary} is a mapped dictionary as well.
+     *
+     * @return Merged base or null if the delta is empty
+     */
+    synchronized TrieDictionary<String> createMergedBase() {
+        if (deltaSize == 0) {
+            return null;
+        }
+
+        if (base instanceof MappedDictionary) {
+            // keep the entries in a binary dictionary instead of building a trie
+            List<String> phrases = new ArrayList<>(deltaSize);
+            for (TrieDictionary<String> dictionary : delta) {
+                for (DictionaryEntry<String> entry : dictionary) {
+                    phrases.add(entry.phrase());
+                }
+            }
+            return ((MappedDictionary) base).withPhrases(phrases);
+        }
+
+        TrieDictionary<String> mergedBase = copy(base);
+        for (TrieDictionary<String> dictionary : delta) {
+            for (DictionaryEntry<String> entry : dictionary) {
+                mergedBase.addEntry(entry);
+            }
+        }
+        return mergedBase;
+    }
+
+    /**
+     * Replaces the base by given base, e.g. a base created by {@link #createMergedBase()} or reloaded from the train
+     * file. Delta entries missing in the new base are kept in the delta.
+     *
+     * @param newBase New base, must not be modified afterwards
+     */
+    synchronized void replaceBase(TrieDictionary<String> newBase) {
+        TrieDictionary<String> remainingEntries = new TrieDictionary<>();
+        int remainingSize = 0;
+        for (TrieDictionary<String> dictionary : delta) {
+            for (DictionaryEntry<String> entry : dictionary) {
+                if (newBase.phraseEntryList(entry.phrase()).isEmpty()) {
+                    remainingEntries.addEntry(entry);
+                    remainingSize++;
+                }
+            }
+        }
+
+        base = newBase;
+        batchedEntries = remainingEntries;
+        latestBatch = new TrieDictionary<>();
+        latestBatchSize = 0;
+        publishDelta();
+        deltaSize = remainingSize;
+    }
+
+    /**
+     * Publishes the non-empty dictionaries of the delta. Has to be called while holding the lock of this instance.
+     */
+    private void publishDelta() {
+        List<TrieDictionary<String>> dictionaries = new ArrayList<>(2);
+        if (batchedEntries.size() > 0) {
+            dictionaries.add(batchedEntries);
+        }
+        if (latestBatchSize > 0) {
+            dictionaries.add(latestBatch);
+        }
+        delta = Collections.unmodifiableList(dictionaries);
+    }
+
+    /**
+     * Returns the category of learned entries.
+     *
+     * @return Category of the dictionary entries
+     */
+    public String getCategory() {
+        return category;
+    }
+
+    /**
+     * Returns the current base dictionary.
+     *
+     * @return Base snapshot
+     */
+    public TrieDictionary<String> getBase() {
+        return base;
+    }
+
+    /**
+     * Returns the dictionaries containing the entries learned since the last merge. Every entry is contained in one
+     * of them.
+     *
+     * @return Delta snapshot, at most two dictionaries
+     */
+    public List<TrieDictionary<String>> getDelta() {
+        return delta;
+    }
+
+    /**
+     * Returns the number of entries learned since the last merge.
+     *
+     * @return Number of delta entries
+     */
+    public int getDeltaSize() {
+        return deltaSize;
+    }
+
+    /**
+     * Checks whether the delta contains at least the max number of entries and should be merged into the base.
+     *
+     * @return <code>true</code> if the delta is full
+     */
+    public boolean isDeltaFull() {
+        return deltaSize >= maxDeltaSize;
+    }
+
+    private static TrieDictionary<String> copy(TrieDictionary<String> dictionary) {
+        TrieDictionary<String> copy = new TrieDictionary<>();
+        for (DictionaryEntry<String> entry : dictionary) {
+            copy.addEntry(entry);
+        }
+        return copy;
+    }
+}
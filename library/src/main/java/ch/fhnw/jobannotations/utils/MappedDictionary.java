@@ -0,0 +1,139 @@
+package ch.fhnw.jobannotations.utils;
+
+import com.aliasi.dict.DictionaryEntry;
+import com.aliasi.dict.TrieDictionary;
+
+import java.io.ObjectOutput;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.TreeSet;
+
+/**
+ * Dictionary serving the entries of a {@link BinaryDictionary} with a single category, so a precompiled train file is
+ * used without building a trie in the heap. It extends {@link TrieDictionary} to be a drop-in base of a
+ * {@link ManagedDictionary}, but its trie is empty: entries are looked up in the binary dictionary and approximate
+ * matches are found by a {@link BinaryDictionaryChunker} instead of an
+ * {@link com.aliasi.dict.ApproxDictionaryChunker}.
+ * <p>
+ * The dictionary is immutable, new entries are added by creating an extended copy.
+ */
+public class MappedDictionary extends TrieDictionary<String> {
+
+    private final BinaryDictionary binaryDictionary;
+    private final String category;
+
+    /**
+     * Constructs a dictionary of the entries of given binary dictionary.
+     *
+     * @param binaryDictionary Binary dictionary
+     * @param category         Category of all entries
+     */
+    public MappedDictionary(BinaryDictionary binaryDictionary, String category) {
+        this.binaryDictionary = binaryDictionary;
+        this.category = category;
+    }
+
+    /**
+     * Creates a dictionary containing the entries of this dictionary and given phrases. The entries are copied into a
+     * binary dictionary in the heap, which is still far smaller than a trie.
+     *
+     * @param phrases Phrases to be added
+     * @return Extended dictionary
+     */
+    public MappedDictionary withPhrases(Collection<String> phrases) {
+        Collection<String> entries = new TreeSet<>(phrases);
+        for (int i = 0; i < binaryDictionary.size(); i++) {
+            entries.add(binaryDictionary.get(i));
+        }
+        return new MappedDictionary(BinaryDictionary.create(entries), category);
+    }
+
+    /**
+     * Returns the binary dictionary of the entries.
+     *
+     * @return Binary dictionary
+     */
+    public BinaryDictionary getBinaryDictionary() {
+        return binaryDictionary;
+    }
+
+    /**
+     * Returns the category of all entries.
+     *
+     * @return Category of the entries
+     */
+    public String getCategory() {
+        return category;
+    }
+
+    @Override
+    public List<DictionaryEntry<String>> phraseEntryList(String phrase) {
+        if (StringUtils.isEmpty(phrase) || !binaryDictionary.contains(phrase)) {
+            return Collections.emptyList();
+        }
+        return Collections.singletonList(new DictionaryEntry<>(phrase, category));
+    }
+
+    @Override
+    public Iterator<DictionaryEntry<String>> phraseEntryIt(String phrase) {
+        return phraseEntryList(phrase).iterator();
+    }
+
+    @Override
+    public List<DictionaryEntry<String>> categoryEntryList(String category) {
+        return this.category.equals(category) ? entryList() : Collections.emptyList();
+    }
+
+    @Override
+    public Iterator<DictionaryEntry<String>> categoryEntryIt(String category) {
+        return categoryEntryList(category).iterator();
+    }
+
+    @Override
+    public List<DictionaryEntry<String>> entryList() {
+        List<DictionaryEntry<String>> entries = new ArrayList<>(size());
+        for (DictionaryEntry<String> entry : this) {
+            entries.add(entry);
+        }
+        return entries;
+    }
+
+    @Override
+    public Iterator<DictionaryEntry<String>> iterator() {
+        return new Iterator<DictionaryEntry<String>>() {
+            private int index;
+
+            @Override
+            public boolean hasNext() {
+                return index < binaryDictionary.size();
+            }
+
+            @Override
+            public DictionaryEntry<String> next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return new DictionaryEntry<>(binaryDictionary.get(index++), category);
+            }
+        };
+    }
+
+    @Override
+    public int size() {
+        return binaryDictionary.size();
+    }
+
+    @Override
+    public void addEntry(DictionaryEntry<String> entry) {
+        throw new UnsupportedOperationException("Mapped dictionaries are immutable");
+    }
+
+    @Override
+    public void compileTo(ObjectOutput output) {
+        throw new UnsupportedOperationException("Mapped dictionaries are stored by BinaryDictionary");
+    }
+}
@@ -2,6 +2,7 @@ package ch.fhnw.jobannotations.utils;
 
 import com.aliasi.chunk.Chunk;
 import com.aliasi.chunk.Chunking;
+import com.aliasi.chunk.ChunkingImpl;
 import com.aliasi.dict.ApproxDictionaryChunker;
 import com.aliasi.dict.TrieDictionary;
 import com.aliasi.spell.FixedWeightEditDistance;
@@ -11,17 +12,47 @@ import com.aliasi.tokenizer.TokenizerFactory;
 import edu.stanford.nlp.ling.CoreAnnotations;
 import edu.stanford.nlp.ling.CoreLabel;
 import edu.stanford.nlp.pipeline.Annotation;
-import edu.stanford.nlp.pipeline.StanfordCoreNLP;
 import edu.stanford.nlp.util.CoreMap;
 import org.apache.log4j.Logger;
 
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
 import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Singleton class for NLP related operations. This class is responsible for initializing the NLP models. Provides utility
- * methods for NLP operations.
+ * methods for NLP operations. The instance is thread-safe: text is annotated with a pool of pipelines that share the
+ * loaded models, the size of the pool is defined by <code>configuration.nlp.pipelines</code>. Every {@link NlpProfile} has
+ * its own pool, so callers only pay for the annotators they need. Annotations of short texts are cached, see
+ * {@link #getAnnotationCache()}.
+ * <p>
+ * Learned entries are added to the delta of a {@link ManagedDictionary} and are found immediately. The deltas are
+ * merged into new base dictionaries every <code>configuration.dictionary.merge.interval</code> seconds or as soon as a
+ * delta contains <code>configuration.dictionary.merge.maxDeltaSize</code> entries. Changed train files are reloaded in the
+ * background, see {@link DictionaryRegistry}.
+ * <p>
+ * Train files with an up to date {@link BinaryDictionary} are memory-mapped as {@link MappedDictionary} instead of
+ * being loaded into a trie, which shortens the startup and keeps the entries out of the heap.
  *
  * @author Hoang Tran <hoang.tran@students.fhnw.ch>
  */
@@ -33,47 +64,226 @@ public class NlpHelper {
     public static final String POS_TAG_COMMON_NOUN = "NN";
     public static final String POS_TAG_PROPER_NOUN = "NE"; // includes names, cities, etc
 
-    private static NlpHelper instance;
-    private StanfordCoreNLP pipeline;
-    private final TrieDictionary<String> titlesDictionary;
-    private final TrieDictionary<String> skillsDictionary;
-    private final TrieDictionary<String> antiSkillsDictionary;
-    private final TrieDictionary<String> locationsDictionary;
+    private static final TokenizerFactory DICTIONARY_TOKENIZER_FACTORY = IndoEuropeanTokenizerFactory.INSTANCE;
+    private static final WeightedEditDistance DICTIONARY_EDIT_DISTANCE = new FixedWeightEditDistance(0, -1, -1, -1, Double.NaN);
+    private static final String DICTIONARY_CATEGORY_ORGANISATION = "ORG";
+    private static final String DICTIONARY_CATEGORY_TITLE = "TITLE";
+    private static final String DICTIONARY_CATEGORY_SKILL = "SKILL";
+    private static final String DICTIONARY_CATEGORY_LOCATION = "LOCATION";
+    private static final String DICTIONARY_ENGINE_LINGPIPE = "lingpipe";
+    private static final String DICTIONARY_ENGINE_SYMSPELL = "symspell";
+    private static final IntStringPair NO_DICTIONARY_MATCH = new IntStringPair(Integer.MAX_VALUE, null);
+
+    private final Map<NlpProfile, PipelinePool> pipelinePools = new EnumMap<>(NlpProfile.class);
+    private final LruCache<String, List<CoreMap>> annotationCache;
+    private final AnnotationStore annotationStore;
+    private final int maxCachedTextLength;
+    private final ManagedDictionary titlesDictionary;
+    private final ManagedDictionary skillsDictionary;
+    private final ManagedDictionary antiSkillsDictionary;
+    private final ManagedDictionary locationsDictionary;
+    private final ManagedDictionary organisationsDictionary;
+    private final List<ManagedDictionary> managedDictionaries;
+    private final int maxIndexedDistance;
+    private final ScheduledExecutorService mergeExecutor;
+    private final AtomicBoolean mergeQueued = new AtomicBoolean();
+
+    // immutable map of fuzzy lookup indexes by base dictionary, empty if the LingPipe chunkers are used
+    private volatile Map<TrieDictionary<String>, SymSpellIndex> dictionaryIndexes = new IdentityHashMap<>();
+
+    // immutable map of memoized distances by base dictionary, delta entries are looked up on every call
+    private volatile Map<TrieDictionary<String>, LruCache<String, IntStringPair>> dictionaryDistances = new IdentityHashMap<>();
+
+    // incremented whenever entries of a managed dictionary change
+    private final AtomicLong dictionaryVersion = new AtomicLong();
+
+    // immutable map of reusable chunkers by dictionary and max distance, replaced on every change
+    private volatile Map<TrieDictionary<String>, Map<Double, ApproxDictionaryChunker>> dictionaryChunkers = new IdentityHashMap<>();
 
     private NlpHelper() {
         LOG.debug("Initializing NLP");
-        pipeline = new StanfordCoreNLP(FileUtils.getStanfordCoreNLPGermanConfiguration());
+        int nofPipelines = ConfigurationUtil.getInt("configuration.nlp.pipelines", Runtime.getRuntime().availableProcessors());
+        Properties configuration = FileUtils.getStanfordCoreNLPGermanConfiguration();
+
+        // load models with full profile first, smaller profiles reuse the loaded annotators
+        pipelinePools.put(NlpProfile.FULL, new PipelinePool(configuration, nofPipelines));
+        for (NlpProfile profile : NlpProfile.values()) {
+            if (profile.getAnnotators() != null) {
+                Properties profileConfiguration = new Properties();
+                profileConfiguration.putAll(configuration);
+                profileConfiguration.setProperty("annotators", profile.getAnnotators());
+                pipelinePools.put(profile, new PipelinePool(profileConfiguration, nofPipelines));
+            }
+        }
+
+        annotationCache = new LruCache<>(ConfigurationUtil.getInt("configuration.nlp.cache.size", 10000));
+        maxCachedTextLength = ConfigurationUtil.getInt("configuration.nlp.cache.maxTextLength", 1000);
+        annotationStore = AnnotationStore.fromConfiguration(new TreeMap<>(configuration).toString());
 
         LOG.debug("Loading dictionaries");
-        titlesDictionary = PartOfSpeechUtil.getTrieDictionaryByFile(ConfigurationUtil.get("extraction.titles.train"), "TITLE");
-        skillsDictionary = PartOfSpeechUtil.getTrieDictionaryByFile(ConfigurationUtil.get("extraction.skills.train.positive"), "SKILL");
-        antiSkillsDictionary = PartOfSpeechUtil.getTrieDictionaryByFile(ConfigurationUtil.get("extraction.skills.train.negative"), "ANTISKILL");
-        locationsDictionary = PartOfSpeechUtil.getTrieDictionaryByFile(ConfigurationUtil.get("extraction.locations.train"), "LOCATION");
+        int maxDeltaSize = ConfigurationUtil.getInt("configuration.dictionary.merge.maxDeltaSize", 1000);
+        titlesDictionary = loadDictionary(ConfigurationUtil.get("extraction.titles.train"), DICTIONARY_CATEGORY_TITLE, maxDeltaSize);
+        skillsDictionary = loadDictionary(ConfigurationUtil.get("extraction.skills.train.positive"), DICTIONARY_CATEGORY_SKILL, maxDeltaSize);
+        antiSkillsDictionary = loadDictionary(ConfigurationUtil.get("extraction.skills.train.negative"), "ANTISKILL", maxDeltaSize);
+        locationsDictionary = loadDictionary(ConfigurationUtil.get("extraction.locations.train"), DICTIONARY_CATEGORY_LOCATION, maxDeltaSize);
+        organisationsDictionary = loadDictionary(ConfigurationUtil.get("extraction.organisations.train"), DICTIONARY_CATEGORY_ORGANISATION, maxDeltaSize);
+        managedDictionaries = Arrays.asList(titlesDictionary, skillsDictionary, antiSkillsDictionary, locationsDictionary, organisationsDictionary);
+
+        // distances of organisations are not memoized, they are only chunked
+        int distanceCacheSize = ConfigurationUtil.getInt("configuration.dictionary.cache.size", 50000);
+        Map<TrieDictionary<String>, LruCache<String, IntStringPair>> distances = new IdentityHashMap<>();
+        distances.put(titlesDictionary.getBase(), new LruCache<>(distanceCacheSize));
+        distances.put(skillsDictionary.getBase(), new LruCache<>(distanceCacheSize));
+        distances.put(antiSkillsDictionary.getBase(), new LruCache<>(distanceCacheSize));
+        distances.put(locationsDictionary.getBase(), new LruCache<>(distanceCacheSize));
+        dictionaryDistances = distances;
+
+        if (DICTIONARY_ENGINE_SYMSPELL.equals(ConfigurationUtil.get("configuration.dictionary.engine", DICTIONARY_ENGINE_LINGPIPE))) {
+            LOG.debug("Indexing dictionaries");
+            maxIndexedDistance = ConfigurationUtil.getInt("configuration.dictionary.index.maxDistance", 2);
+            Map<TrieDictionary<String>, SymSpellIndex> indexes = new IdentityHashMap<>();
+            for (ManagedDictionary dictionary : managedDictionaries) {
+                indexes.put(dictionary.getBase(), new SymSpellIndex(dictionary.getBase(), DICTIONARY_TOKENIZER_FACTORY, maxIndexedDistance));
+            }
+            dictionaryIndexes = indexes;
+        } else {
+            maxIndexedDistance = -1;
+        }
+
+        mergeExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "dictionary-merge");
+            thread.setDaemon(true);
+            return thread;
+        });
+        int mergeInterval = ConfigurationUtil.getInt("configuration.dictionary.merge.interval", 300);
+        if (mergeInterval > 0) {
+            mergeExecutor.scheduleWithFixedDelay(this::mergeDictionaries, mergeInterval, mergeInterval, TimeUnit.SECONDS);
+        }
+    }
+
+    private ManagedDictionary loadDictionary(String filename, String category, int maxDeltaSize) {
+        ManagedDictionary dictionary = new ManagedDictionary(loadBase(filename, category), category, maxDeltaSize);
+        addLoggedEntries(dictionary, filename);
+        DictionaryRegistry.getInstance().addChangeListener(filename, file -> reloadDictionary(dictionary, filename));
+        return dictionary;
+    }
+
+    /**
+     * Loads the base dictionary of given train file. An up to date {@link BinaryDictionary} of the train file is
+     * mapped instead of building a trie of the text file, see {@link BinaryDictionary#convert(String)}. Entries of the
+     * {@link LearningLog} are only included in a trie, see {@link #addLoggedEntries(ManagedDictionary, String)}.
+     *
+     * @param filename Train file
+     * @param category Category of the entries
+     * @return Base dictionary
+     */
+    private static TrieDictionary<String> loadBase(String filename, String category) {
+        Path trainFile = Paths.get(filename);
+        if (BinaryDictionary.isUpToDate(trainFile)) {
+            try {
+                return new MappedDictionary(BinaryDictionary.open(BinaryDictionary.getBinaryFile(trainFile)), category);
+            } catch (IOException e) {
+                LOG.error("Something went wrong while mapping the binary dictionary of " + filename + ", using the text file", e);
+            }
+        }
+        return PartOfSpeechUtil.getTrieDictionaryByFile(filename, category);
+    }
+
+    /**
+     * Adds the entries learned since the last compaction of the train file to the delta of given dictionary, if its
+     * base is a {@link MappedDictionary}. Tries contain them already.
+     *
+     * @param dictionary Managed dictionary
+     * @param filename   Train file of the dictionary
+     * @return <code>true</code> if entries have been added
+     */
+    private static boolean addLoggedEntries(ManagedDictionary dictionary, String filename) {
+        Path logFile = LearningLog.getLogFile(Paths.get(filename));
+        if (!(dictionary.getBase() instanceof MappedDictionary) || !Files.exists(logFile)) {
+            return false;
+        }
+
+        boolean added = false;
+        try {
+            for (String entry : Files.readAllLines(logFile, StandardCharsets.UTF_8)) {
+                added |= dictionary.add(entry);
+            }
+        } catch (IOException e) {
+            LOG.error("Something went wrong while reading " + logFile, e);
+        }
+        return added;
     }
 
     /**
-     * Returns the static instance of this class. Creates a new instance if it is currently null.
+     * Returns the static instance of this class. The instance is created on first access, concurrent callers wait
+     * until the models have been loaded once.
      *
      * @return Static instance of this class
      */
     public static NlpHelper getInstance() {
-        if (instance == null) {
-            instance = new NlpHelper();
-        }
-        return instance;
+        return InstanceHolder.INSTANCE;
     }
 
     /**
-     * Annotates the sentences of the given text and returns them.
+     * Annotates the sentences of the given text with all configured annotators and returns them.
      *
      * @param text Text to be annotated
      * @return Annotated sentences
+     * @see #getAnnotatedSentences(String, NlpProfile)
      */
     public List<CoreMap> getAnnotatedSentences(String text) {
-        Annotation document = new Annotation(text);
+        return getAnnotatedSentences(text, NlpProfile.FULL);
+    }
+
+    /**
+     * Annotates the sentences of the given text with the annotators of the given profile and returns them. Annotations
+     * of short texts are cached and shared between callers, so the returned sentences must not be modified. If an
+     * {@link AnnotationStore} is configured, stored annotations are loaded instead of annotating the text again.
+     *
+     * @param text    Text to be annotated
+     * @param profile Profile defining the annotations that are needed
+     * @return Annotated sentences
+     */
+    public List<CoreMap> getAnnotatedSentences(String text, NlpProfile profile) {
+        boolean cacheable = text.length() <= maxCachedTextLength;
+        String cacheKey = null;
+
+        if (cacheable) {
+            cacheKey = profile.name() + ':' + text;
+            List<CoreMap> cachedSentences = annotationCache.get(cacheKey);
+            if (cachedSentences != null) {
+                return cachedSentences;
+            }
+        }
+
+        Annotation document = annotationStore != null ? annotationStore.load(text, profile) : null;
+        if (document == null) {
+            document = new Annotation(text);
+            pipelinePools.get(profile).annotate(document);
+
+            if (annotationStore != null) {
+                annotationStore.save(text, profile, document);
+            }
+        }
 
-        pipeline.annotate(document);
-        return document.get(CoreAnnotations.SentencesAnnotation.class);
+        List<CoreMap> sentences = document.get(CoreAnnotations.SentencesAnnotation.class);
+
+        if (cacheable) {
+            sentences = Collections.unmodifiableList(sentences);
+            annotationCache.put(cacheKey, sentences);
+        }
+        return sentences;
+    }
+
+    /**
+     * Returns the cache of annotated texts, e.g. to read its hit and miss counters. The size of the cache is defined by
+     * <code>configuration.nlp.cache.size</code>, texts longer than <code>configuration.nlp.cache.maxTextLength</code>
+     * are not cached.
+     *
+     * @return Cache of annotated sentences by profile and text
+     */
+    public LruCache<String, List<CoreMap>> getAnnotationCache() {
+        return annotationCache;
     }
 
     /**
@@ -98,8 +308,17 @@ public class NlpHelper {
      * @return List of extracted nouns
      */
     public List<String> extractNouns(String sentence) {
+        return extractNounsFromAnnotatedSentences(getAnnotatedSentences(sentence, NlpProfile.POS));
+    }
+
+    /**
+     * Extracts nouns of given sentences, which have been annotated with POS tags.
+     *
+     * @param annotatedSentences Annotated sentences to extract nouns from
+     * @return List of extracted nouns
+     */
+    public List<String> extractNounsFromAnnotatedSentences(List<CoreMap> annotatedSentences) {
         List<String> nouns = new ArrayList<>();
-        List<CoreMap> annotatedSentences = getAnnotatedSentences(sentence);
         for (CoreMap annotatedSentence : annotatedSentences) {
             List<CoreLabel> tokens = annotatedSentence.get(CoreAnnotations.TokensAnnotation.class);
             for (CoreLabel token : tokens) {
@@ -115,7 +334,9 @@ public class NlpHelper {
     }
 
     /**
-     * Calculates distance of given word with entries in given dictionary with given max distance.
+     * Calculates distance of given word with entries in given dictionary with given max distance. Distances of words in
+     * the base dictionaries managed by this class are memoized until {@link #invalidateDictionaryDistances(TrieDictionary)}
+     * is called or the base is replaced, entries learned since the last merge are looked up on every call.
      *
      * @param dictionary Dictionary to be used to calculate distance
      * @param word Word to be used to calculate distance
@@ -123,12 +344,449 @@ public class NlpHelper {
      * @return IntStringPair of calculated distance and analyzed word
      */
     public IntStringPair calcDistanceWithDictionary(TrieDictionary<String> dictionary, String word, double maxDistance) {
+        if (isExactMatch(dictionary, word)) {
+            // an entry covering the whole word is the best possible match, no need to chunk
+            return new IntStringPair(DICTIONARY_DISTANCE_MIN_VALUE, word);
+        }
+
+        LruCache<String, IntStringPair> distances = dictionaryDistances.get(dictionary);
+        if (distances == null) {
+            return getBestMatch(chunkWithDictionary(dictionary, word, maxDistance));
+        }
+
+        String cacheKey = maxDistance + ":" + word;
+        IntStringPair distance = distances.get(cacheKey);
+        if (distance == null) {
+            distance = getBestMatch(chunkWithBaseDictionary(dictionary, word, maxDistance));
+            distances.put(cacheKey, distance != null ? distance : NO_DICTIONARY_MATCH);
+        }
+        if (distance == NO_DICTIONARY_MATCH) {
+            distance = null;
+        }
+
+        ManagedDictionary managedDictionary = getManagedDictionary(dictionary);
+        if (managedDictionary != null && managedDictionary.getDeltaSize() > 0) {
+            distance = getBetterMatch(distance, getBestMatch(chunkWithDelta(managedDictionary, word, maxDistance)));
+        }
+
+        if (distance == null) {
+            return null;
+        }
+
+        // return a copy, since callers may modify the result
+        return new IntStringPair(distance.getInt(), distance.getString());
+    }
+
+    /**
+     * Checks whether given word is an entry of given dictionary or of the delta of the managed dictionary. Words with
+     * surrounding whitespace are never exact matches, chunks start and end on tokens.
+     *
+     * @param dictionary Dictionary to be used
+     * @param word       Word to be looked up
+     * @return <code>true</code> if the word is an entry
+     */
+    private boolean isExactMatch(TrieDictionary<String> dictionary, String word) {
+        if (StringUtils.isEmpty(word) || Character.isWhitespace(word.charAt(0))
+                || Character.isWhitespace(word.charAt(word.length() - 1))) {
+            return false;
+        }
+
+        if (!dictionary.phraseEntryList(word).isEmpty()) {
+            return true;
+        }
+        ManagedDictionary managedDictionary = getManagedDictionary(dictionary);
+        return managedDictionary != null && managedDictionary.isDeltaEntry(word);
+    }
+
+    /**
+     * Removes all memoized distances of given dictionary. Has to be called whenever entries of a managed dictionary
+     * change, otherwise outdated distances will be returned.
+     *
+     * @param dictionary Dictionary that has been changed
+     */
+    public void invalidateDictionaryDistances(TrieDictionary<String> dictionary) {
+        LruCache<String, IntStringPair> distances = dictionaryDistances.get(dictionary);
+        if (distances != null) {
+            distances.clear();
+        }
+        dictionaryVersion.incrementAndGet();
+    }
+
+    /**
+     * Returns the version of the managed dictionaries. The version changes whenever entries of a managed dictionary
+     * change, so results depending on the dictionaries can be cached by version.
+     *
+     * @return Version of the managed dictionaries
+     */
+    public long getDictionaryVersion() {
+        return dictionaryVersion.get();
+    }
+
+    /**
+     * Returns the memoized distances of given dictionary, e.g. to read its hit and miss counters. The size of the cache
+     * is defined by <code>configuration.dictionary.cache.size</code>.
+     *
+     * @param dictionary Dictionary managed by this class
+     * @return Memoized distances by max distance and word or null if the dictionary is not managed by this class
+     */
+    public LruCache<String, IntStringPair> getDictionaryDistanceCache(TrieDictionary<String> dictionary) {
+        return dictionaryDistances.get(dictionary);
+    }
+
+    /**
+     * Calculates distances of all given words with entries in given dictionary with given max distance.
+     *
+     * @param dictionary  Dictionary to be used to calculate distances
+     * @param words       Words to be used to calculate distances
+     * @param maxDistance Max distance to be used
+     * @return Map of every word and its calculated distance, the distance is null if nothing matched
+     * @see #calcDistanceWithDictionary(TrieDictionary, String, double)
+     */
+    public Map<String, IntStringPair> calcDistancesWithDictionary(TrieDictionary<String> dictionary, Collection<String> words, double maxDistance) {
+        Map<String, IntStringPair> distances = new LinkedHashMap<>();
+        for (String word : words) {
+            if (!distances.containsKey(word)) {
+                distances.put(word, calcDistanceWithDictionary(dictionary, word, maxDistance));
+            }
+        }
+        return distances;
+    }
+
+    /**
+     * Finds all spans of given text within given max distance of an entry of given dictionary. Uses the fuzzy lookup
+     * index of the dictionary if <code>configuration.dictionary.engine</code> is <code>symspell</code> and the distance
+     * is indexed, the LingPipe chunker otherwise. Both produce the same chunks. Entries learned since the last merge
+     * of a managed dictionary are included.
+     *
+     * @param dictionary  Dictionary to be used
+     * @param text        Text to be analysed
+     * @param maxDistance Max distance of the chunks
+     * @return Chunking of the spans with their distance as score
+     */
+    public Chunking chunkWithDictionary(TrieDictionary<String> dictionary, String text, double maxDistance) {
+        Chunking chunking = chunkWithBaseDictionary(dictionary, text, maxDistance);
+
+        ManagedDictionary managedDictionary = getManagedDictionary(dictionary);
+        if (managedDictionary == null || managedDictionary.getDeltaSize() == 0) {
+            return chunking;
+        }
+
+        return mergeChunkings(text, Arrays.asList(chunking, chunkWithDelta(managedDictionary, text, maxDistance)));
+    }
+
+    /**
+     * Merges chunkings of the same text, keeping the closest distance of every span.
+     *
+     * @param text      Chunked text
+     * @param chunkings Chunkings of the text
+     * @return Chunking containing the best chunk of every span
+     */
+    private static Chunking mergeChunkings(String text, List<Chunking> chunkings) {
+        Map<Long, Chunk> chunks = new LinkedHashMap<>();
+        for (Chunking partialChunking : chunkings) {
+            for (Chunk chunk : partialChunking.chunkSet()) {
+                long span = ((long) chunk.start() << 32) | chunk.end();
+                Chunk knownChunk = chunks.get(span);
+                if (knownChunk == null || chunk.score() < knownChunk.score()) {
+                    chunks.put(span, chunk);
+                }
+            }
+        }
+
+        ChunkingImpl mergedChunking = new ChunkingImpl(text);
+        for (Chunk chunk : chunks.values()) {
+            mergedChunking.add(chunk);
+        }
+        return mergedChunking;
+    }
+
+    /**
+     * Finds all spans of given text within given max distance of an entry of the delta of given managed dictionary.
+     * The delta is small, so new LingPipe chunkers are used.
+     *
+     * @param managedDictionary Managed dictionary
+     * @param text              Text to be analysed
+     * @param maxDistance       Max distance of the chunks
+     * @return Chunking of the spans with their distance as score
+     */
+    private Chunking chunkWithDelta(ManagedDictionary managedDictionary, String text, double maxDistance) {
+        List<TrieDictionary<String>> delta = managedDictionary.getDelta();
+        List<Chunking> chunkings = new ArrayList<>(delta.size());
+        for (TrieDictionary<String> dictionary : delta) {
+            chunkings.add(newDictionaryChunker(dictionary, maxDistance).chunk(text));
+        }
+        return chunkings.size() == 1 ? chunkings.get(0) : mergeChunkings(text, chunkings);
+    }
+
+    /**
+     * Finds all spans of given text within given max distance of an entry of given dictionary, ignoring the delta of
+     * managed dictionaries.
+     *
+     * @param dictionary  Dictionary to be used
+     * @param text        Text to be analysed
+     * @param maxDistance Max distance of the chunks
+     * @return Chunking of the spans with their distance as score
+     */
+    private Chunking chunkWithBaseDictionary(TrieDictionary<String> dictionary, String text, double maxDistance) {
+        SymSpellIndex index = dictionaryIndexes.get(dictionary);
+        if (index != null && maxDistance >= 0 && maxDistance <= index.getMaxDistance()) {
+            return index.chunk(text, (int) maxDistance);
+        }
+        return getDictionaryChunker(dictionary, maxDistance).chunk(text);
+    }
+
+    /**
+     * Returns a chunker that finds entries of given dictionary with given max distance. Chunkers of the dictionaries
+     * managed by this class are created once and shared between threads, other dictionaries get a new chunker.
+     *
+     * @param dictionary  Dictionary to be used by the chunker
+     * @param maxDistance Max distance to be used by the chunker
+     * @return Chunker for given dictionary and max distance
+     */
+    public ApproxDictionaryChunker getDictionaryChunker(TrieDictionary<String> dictionary, double maxDistance) {
+        Map<Double, ApproxDictionaryChunker> chunkers = dictionaryChunkers.get(dictionary);
+        ApproxDictionaryChunker chunker = chunkers != null ? chunkers.get(maxDistance) : null;
+        if (chunker != null) {
+            return chunker;
+        }
+
+        if (!isManagedDictionary(dictionary)) {
+            return newDictionaryChunker(dictionary, maxDistance);
+        }
+
+        return createDictionaryChunker(dictionary, maxDistance);
+    }
+
+    /**
+     * Creates a chunker for given dictionary and max distance and publishes it for reuse.
+     *
+     * @param dictionary  Dictionary to be used by the chunker
+     * @param maxDistance Max distance to be used by the chunker
+     * @return Created or concurrently published chunker
+     */
+    private synchronized ApproxDictionaryChunker createDictionaryChunker(TrieDictionary<String> dictionary, double maxDistance) {
+        if (!isManagedDictionary(dictionary)) {
+            // dictionary has been replaced concurrently
+            return newDictionaryChunker(dictionary, maxDistance);
+        }
+
+        Map<TrieDictionary<String>, Map<Double, ApproxDictionaryChunker>> allChunkers = new IdentityHashMap<>(dictionaryChunkers);
+        Map<Double, ApproxDictionaryChunker> chunkers = new HashMap<>();
+        if (allChunkers.containsKey(dictionary)) {
+            chunkers.putAll(allChunkers.get(dictionary));
+        }
+
+        ApproxDictionaryChunker chunker = chunkers.get(maxDistance);
+        if (chunker == null) {
+            chunker = newDictionaryChunker(dictionary, maxDistance);
+            chunkers.put(maxDistance, chunker);
+            allChunkers.put(dictionary, chunkers);
+            dictionaryChunkers = allChunkers;
+        }
+        return chunker;
+    }
+
+    /**
+     * Creates a chunker that finds entries of given dictionary with given max distance. A {@link MappedDictionary} is
+     * searched by a {@link BinaryDictionaryChunker}, since its trie is empty.
+     *
+     * @param dictionary  Dictionary to be used by the chunker
+     * @param maxDistance Max distance to be used by the chunker
+     * @return New chunker
+     */
+    private static ApproxDictionaryChunker newDictionaryChunker(TrieDictionary<String> dictionary, double maxDistance) {
+        if (dictionary instanceof MappedDictionary) {
+            return new BinaryDictionaryChunker((MappedDictionary) dictionary, DICTIONARY_TOKENIZER_FACTORY, maxDistance);
+        }
+        return new ApproxDictionaryChunker(dictionary, DICTIONARY_TOKENIZER_FACTORY, DICTIONARY_EDIT_DISTANCE, maxDistance);
+    }
+
+    /**
+     * Checks whether the given dictionary is one of the dictionaries loaded by this class.
+     *
+     * @param dictionary Dictionary to check
+     * @return <code>true</code> if the dictionary is managed by this class, <code>false</code> otherwise
+     */
+    private boolean isManagedDictionary(TrieDictionary<String> dictionary) {
+        return getManagedDictionary(dictionary) != null;
+    }
+
+    /**
+     * Returns the managed dictionary whose current base is the given dictionary.
+     *
+     * @param dictionary Base dictionary
+     * @return Managed dictionary or null if the dictionary is not a current base of this class
+     */
+    private ManagedDictionary getManagedDictionary(TrieDictionary<String> dictionary) {
+        // compare identities, dictionaries are sets and would compare their entries
+        for (ManagedDictionary managedDictionary : managedDictionaries) {
+            if (managedDictionary.getBase() == dictionary) {
+                return managedDictionary;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Adds given organisation to the organisations dictionary, unless it is already known or quarantine mode is
+     * enabled.
+     *
+     * @param organisation Name of the organisation
+     * @see #learnDictionaryEntry(ManagedDictionary, String)
+     */
+    public void learnOrganisation(String organisation) {
+        learnDictionaryEntry(organisationsDictionary, organisation);
+    }
+
+    /**
+     * Adds given job title to the titles dictionary, unless it is already known or quarantine mode is enabled.
+     *
+     * @param title Job title
+     * @see #learnDictionaryEntry(ManagedDictionary, String)
+     */
+    public void learnTitle(String title) {
+        learnDictionaryEntry(titlesDictionary, title);
+    }
+
+    /**
+     * Adds given skill to the skills dictionary, unless it is already known or quarantine mode is enabled.
+     *
+     * @param skill Skill
+     * @see #learnDictionaryEntry(ManagedDictionary, String)
+     */
+    public void learnSkill(String skill) {
+        learnDictionaryEntry(skillsDictionary, skill);
+    }
+
+    /**
+     * Adds given location to the locations dictionary, unless it is already known or quarantine mode is enabled.
+     *
+     * @param location Location
+     * @see #learnDictionaryEntry(ManagedDictionary, String)
+     */
+    public void learnLocation(String location) {
+        learnDictionaryEntry(locationsDictionary, location);
+    }
+
+    /**
+     * Adds given entry to the delta of given dictionary, so it is found by the next lookup without rebuilding the
+     * base dictionary. Learned entries only go into the train files in quarantine mode, the dictionaries are not
+     * changed. Triggers a merge if the delta is full.
+     *
+     * @param dictionary Managed dictionary
+     * @param entry      Learned entry
+     */
+    private void learnDictionaryEntry(ManagedDictionary dictionary, String entry) {
+        if (StringUtils.isEmpty(entry) || ConfigurationUtil.get("configuration.ml.quarantine", "true").equalsIgnoreCase("true")) {
+            return;
+        }
+
+        if (dictionary.add(entry)) {
+            dictionaryVersion.incrementAndGet();
+            LOG.debug("Added entry to dictionary: " + entry);
+
+            // concurrent learners may pass the max size together, a queued merge covers all of them
+            if (dictionary.isDeltaFull() && mergeQueued.compareAndSet(false, true)) {
+                mergeExecutor.execute(this::mergeDictionaries);
+            }
+        }
+    }
+
+    /**
+     * Merges the learned entries of all managed dictionaries into new base dictionaries. New bases are indexed before
+     * they are published, concurrent lookups keep using the old snapshots until then.
+     */
+    public synchronized void mergeDictionaries() {
+        // entries learned from now on are not covered by this merge
+        mergeQueued.set(false);
+
+        for (ManagedDictionary dictionary : managedDictionaries) {
+            TrieDictionary<String> mergedBase = dictionary.createMergedBase();
+            if (mergedBase != null) {
+                replaceBase(dictionary, mergedBase);
+                LOG.debug("Merged learned entries into dictionary of size " + mergedBase.size());
+            }
+        }
+    }
+
+    /**
+     * Reloads the train file of given dictionary after it has been changed by {@link DictionaryRegistry}. Entries
+     * learned since the last merge are kept if the file does not contain them.
+     *
+     * @param dictionary Managed dictionary
+     * @param filename   Train file of the dictionary
+     */
+    private void reloadDictionary(ManagedDictionary dictionary, String filename) {
+        TrieDictionary<String> reloadedBase = loadBase(filename, dictionary.getCategory());
+        synchronized (this) {
+            replaceBase(dictionary, reloadedBase);
+            if (addLoggedEntries(dictionary, filename)) {
+                dictionaryVersion.incrementAndGet();
+            }
+        }
+        LOG.debug("Reloaded dictionary of size " + reloadedBase.size());
+    }
 
-        TokenizerFactory tokenizerFactory = IndoEuropeanTokenizerFactory.INSTANCE;
-        WeightedEditDistance editDistance = new FixedWeightEditDistance(0, -1, -1, -1, Double.NaN);
-        ApproxDictionaryChunker chunker = new ApproxDictionaryChunker(dictionary, tokenizerFactory, editDistance, maxDistance);
+    /**
+     * Publishes given base of given dictionary. Builds the fuzzy lookup index of the new base if the old base was
+     * indexed and drops the chunkers and memoized distances of the old base. Has to be called while holding the lock of
+     * this instance.
+     *
+     * @param dictionary Managed dictionary
+     * @param newBase    Base replacing the current base
+     */
+    private void replaceBase(ManagedDictionary dictionary, TrieDictionary<String> newBase) {
+        TrieDictionary<String> base = dictionary.getBase();
+
+        Map<TrieDictionary<String>, SymSpellIndex> indexes = new IdentityHashMap<>(dictionaryIndexes);
+        if (indexes.remove(base) != null) {
+            indexes.put(newBase, new SymSpellIndex(newBase, DICTIONARY_TOKENIZER_FACTORY, maxIndexedDistance));
+        }
+        Map<TrieDictionary<String>, Map<Double, ApproxDictionaryChunker>> chunkers = new IdentityHashMap<>(dictionaryChunkers);
+        chunkers.remove(base);
+        Map<TrieDictionary<String>, LruCache<String, IntStringPair>> distances = new IdentityHashMap<>(dictionaryDistances);
+        LruCache<String, IntStringPair> baseDistances = distances.remove(base);
+        if (baseDistances != null) {
+            // lookups of the old base may still write into its cache
+            distances.put(newBase, new LruCache<>(baseDistances.getMaxSize()));
+        }
+
+        dictionaryIndexes = indexes;
+        dictionaryChunkers = chunkers;
+        dictionaryDistances = distances;
+        dictionary.replaceBase(newBase);
+        dictionaryVersion.incrementAndGet();
+    }
+
+    /**
+     * Selects the better of two matches. Matches with a smaller distance ratio are better, longer words win ties.
+     *
+     * @param match      Match or null
+     * @param otherMatch Other match or null
+     * @return Better match or null if both are null
+     */
+    private static IntStringPair getBetterMatch(IntStringPair match, IntStringPair otherMatch) {
+        if (match == null) {
+            return otherMatch;
+        }
+        if (otherMatch == null) {
+            return match;
+        }
+        if (otherMatch.getInt() < match.getInt()
+                || otherMatch.getInt() == match.getInt() && otherMatch.getString().length() > match.getString().length()) {
+            return otherMatch;
+        }
+        return match;
+    }
 
-        Chunking chunking = chunker.chunk(word);
+    /**
+     * Selects the best match of the given chunking. Chunks covering more of the word with a smaller distance are
+     * better matches.
+     *
+     * @param chunking Chunking of a word
+     * @return IntStringPair of calculated distance ratio and analyzed word or null if no chunk has been found
+     */
+    private IntStringPair getBestMatch(Chunking chunking) {
         CharSequence charSequence = chunking.charSequence();
         Set<Chunk> chunkSet = chunking.chunkSet();
         double wordLength = charSequence.length();
@@ -166,18 +824,29 @@ public class NlpHelper {
     }
 
     public TrieDictionary<String> getTitlesDictionary() {
-        return titlesDictionary;
+        return titlesDictionary.getBase();
     }
 
     public TrieDictionary<String> getSkillsDictionary() {
-        return skillsDictionary;
+        return skillsDictionary.getBase();
     }
 
     public TrieDictionary<String> getAntiSkillsDictionary() {
-        return antiSkillsDictionary;
+        return antiSkillsDictionary.getBase();
     }
 
     public TrieDictionary<String> getLocationsDictionary() {
-        return locationsDictionary;
+        return locationsDictionary.getBase();
+    }
+
+    public TrieDictionary<String> getOrganisationsDictionary() {
+        return organisationsDictionary.getBase();
+    }
+
+    /**
+     * Holder of the static instance. The JVM initializes this class exactly once on first access.
+     */
+    private static class InstanceHolder {
+        private static final NlpHelper INSTANCE = new NlpHelper();
     }
 }
@@ -0,0 +1,60 @@
+package ch.fhnw.jobannotations.utils;
+
+/**
+ * Named sets of CoreNLP annotators. Profiles are ordered by the amount of annotations they provide, every profile
+ * includes the annotations of the previous profiles. Using the smallest profile that provides the required annotations
+ * avoids running expensive annotators like the dependency parser on text where only POS tags are read.
+ */
+public enum NlpProfile {
+
+    /**
+     * Tokens, sentences and part of speech tags
+     */
+    POS("tokenize, ssplit, pos"),
+
+    /**
+     * Additionally named entity tags
+     */
+    NER("tokenize, ssplit, pos, ner"),
+
+    /**
+     * All annotators of the StanfordCoreNLP configuration, including dependency parsing
+     */
+    FULL(null);
+
+    private final String annotators;
+
+    NlpProfile(String annotators) {
+        this.annotators = annotators;
+    }
+
+    /**
+     * Returns the annotators of this profile.
+     *
+     * @return Comma separated list of annotators or null if the configured annotators should be used
+     */
+    public String getAnnotators() {
+        return annotators;
+    }
+
+    /**
+     * Checks whether this profile provides at least the annotations of the given profile.
+     *
+     * @param profile Profile to compare with
+     * @return <code>true</code> if this profile includes the given profile, <code>false</code> otherwise
+     */
+    public boolean includes(NlpProfile profile) {
+        return compareTo(profile) >= 0;
+    }
+
+    /**
+     * Returns the larger of the given profiles.
+     *
+     * @param first  First profile
+     * @param second Second profile
+     * @return Profile that includes both given profiles
+     */
+    public static NlpProfile max(NlpProfile first, NlpProfile second) {
+        return first.includes(second) ? first : second;
+    }
+}
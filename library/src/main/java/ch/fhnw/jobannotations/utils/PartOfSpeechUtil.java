@@ -2,13 +2,8 @@ package ch.fhnw.jobannotations.utils;
 
 import com.aliasi.chunk.Chunk;
 import com.aliasi.chunk.Chunking;
-import com.aliasi.dict.ApproxDictionaryChunker;
 import com.aliasi.dict.DictionaryEntry;
 import com.aliasi.dict.TrieDictionary;
-import com.aliasi.spell.FixedWeightEditDistance;
-import com.aliasi.spell.WeightedEditDistance;
-import com.aliasi.tokenizer.IndoEuropeanTokenizerFactory;
-import com.aliasi.tokenizer.TokenizerFactory;
 import opennlp.tools.sentdetect.SentenceDetectorME;
 import opennlp.tools.sentdetect.SentenceModel;
 
@@ -16,12 +11,22 @@ import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
 public class PartOfSpeechUtil {
 
+    // sentence model is loaded once, detectors are not thread-safe and therefore confined to their thread
+    private static volatile SentenceModel sentenceModel;
+    private static final ThreadLocal<SentenceDetectorME> SENTENCE_DETECTOR = new ThreadLocal<>();
+
     /**
      * Sentences of input text are detected and returned unchanged.
      * Detection is performed using OpenNLP sentence detection and the german model.
@@ -30,20 +35,79 @@ public class PartOfSpeechUtil {
      * @return String array containing sentences
      */
     public static String[] detectSentences(String text) {
+        SentenceDetectorME sentenceDetector = getSentenceDetector();
+        if (sentenceDetector == null) {
+            return null;
+        }
 
-        try (InputStream modelIn = FileUtils.getFileAsInputStream(ConfigurationUtil.get("external.OpenNLP.models.sentence"))) {
+        return sentenceDetector.sentDetect(text);
+    }
 
-            SentenceModel sentenceModel = new SentenceModel(modelIn);
+    /**
+     * Sentences of all input texts are detected and returned unchanged, see {@link #detectSentences(String)}.
+     *
+     * @param texts to analyse
+     * @return List containing a String array of sentences per text, in the order of the texts
+     */
+    public static List<String[]> detectSentences(Collection<String> texts) {
+        SentenceDetectorME sentenceDetector = getSentenceDetector();
+        if (sentenceDetector == null) {
+            return null;
+        }
 
-            SentenceDetectorME sentenceDetector = new SentenceDetectorME(sentenceModel);
+        List<String[]> sentences = new ArrayList<>(texts.size());
+        for (String text : texts) {
+            sentences.add(sentenceDetector.sentDetect(text));
+        }
 
-            return sentenceDetector.sentDetect(text);
+        return sentences;
+    }
 
-        } catch (IOException e) {
-            e.printStackTrace();
+    /**
+     * Returns the sentence detector of the calling thread. The detector is created on first use in a thread and shares
+     * the sentence model, which is loaded once.
+     *
+     * @return Sentence detector or null if the model could not be loaded
+     */
+    private static SentenceDetectorME getSentenceDetector() {
+        SentenceDetectorME sentenceDetector = SENTENCE_DETECTOR.get();
+        if (sentenceDetector == null) {
+            SentenceModel model = getSentenceModel();
+            if (model == null) {
+                return null;
+            }
+
+            sentenceDetector = new SentenceDetectorME(model);
+            SENTENCE_DETECTOR.set(sentenceDetector);
         }
 
-        return null;
+        return sentenceDetector;
+    }
+
+    /**
+     * Loads the german sentence model on first access. Loading is retried on the next access if it failed.
+     *
+     * @return Sentence model or null if the model could not be loaded
+     */
+    private static SentenceModel getSentenceModel() {
+        SentenceModel model = sentenceModel;
+        if (model == null) {
+            synchronized (PartOfSpeechUtil.class) {
+                model = sentenceModel;
+                if (model == null) {
+                    try (InputStream modelIn = FileUtils.getFileAsInputStream(ConfigurationUtil.get("external.OpenNLP.models.sentence"))) {
+
+                        model = new SentenceModel(modelIn);
+                        sentenceModel = model;
+
+                    } catch (IOException e) {
+                        e.printStackTrace();
+                    }
+                }
+            }
+        }
+
+        return model;
     }
 
     public static Map<String, Integer> getChunksByDictionary(TrieDictionary<String> dictionary, String textToAnalyse, double distance) {
@@ -54,13 +118,11 @@ public class PartOfSpeechUtil {
             return candidates;
         }
 
-        TokenizerFactory tokenizerFactory = IndoEuropeanTokenizerFactory.INSTANCE;
-        WeightedEditDistance editDistance = new FixedWeightEditDistance(0, -1, -1, -1, Double.NaN);
-        ApproxDictionaryChunker chunker = new ApproxDictionaryChunker(dictionary, tokenizerFactory, editDistance, distance);
+        NlpHelper nlpHelper = NlpHelper.getInstance();
 
         for (String text : sentences) {
 
-            Chunking chunking = chunker.chunk(text);
+            Chunking chunking = nlpHelper.chunkWithDictionary(dictionary, text, distance);
             CharSequence cs = chunking.charSequence();
             Set<Chunk> chunkSet = chunking.chunkSet();
 
@@ -80,7 +142,8 @@ public class PartOfSpeechUtil {
 
     /**
      * Loads known words form resources and returns them as
-     * TrieDictionary - ready to use for the ApproxDictionaryChunker.
+     * TrieDictionary - ready to use for the ApproxDictionaryChunker. Words learned since the last compaction of the
+     * {@link LearningLog} are included.
      *
      * @return dictionary of known words
      */
@@ -90,11 +153,11 @@ public class PartOfSpeechUtil {
 
         try {
 
-            BufferedReader reader = new BufferedReader(new InputStreamReader(FileUtils.getFileAsInputStream(filename), "UTF8"));
+            addFileEntries(dictionary, filename, entityName);
 
-            String line;
-            while ((line = reader.readLine()) != null) {
-                dictionary.addEntry(new DictionaryEntry<>(line, entityName));
+            Path logFile = LearningLog.getLogFile(Paths.get(filename));
+            if (Files.exists(logFile)) {
+                addFileEntries(dictionary, logFile.toString(), entityName);
             }
 
             return dictionary;
@@ -106,4 +169,13 @@ public class PartOfSpeechUtil {
         return dictionary;
     }
 
+    private static void addFileEntries(TrieDictionary<String> dictionary, String filename, String entityName) throws IOException {
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(FileUtils.getFileAsInputStream(filename), "UTF8"))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                dictionary.addEntry(new DictionaryEntry<>(line, entityName));
+            }
+        }
+    }
+
 }
@@ -0,0 +1,52 @@
+package ch.fhnw.jobannotations.utils;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Central registry of compiled regular expressions. Compiling a pattern is much more expensive than matching short
+ * texts like lines or tokens, so patterns are never compiled within loops: fixed patterns are compiled once as
+ * constants, patterns composed at runtime are compiled once by {@link #get(String)}.
+ * <p>
+ * Patterns are thread-safe, matchers are not. A loop matching the same pattern against many texts should create one
+ * matcher and reuse it with {@link Matcher#reset(CharSequence)}.
+ */
+public final class PatternRegistry {
+
+    // patterns shared by several classes
+    public static final Pattern LINE_BREAK = Pattern.compile("\\n");
+    public static final Pattern WHITESPACE = Pattern.compile("\\s");
+    public static final Pattern WORD = Pattern.compile("\\w+");
+    public static final Pattern NUMBER = Pattern.compile("\\d+");
+    public static final Pattern PARENTHESES = Pattern.compile("\\(.*\\)");
+
+    // patterns composed at runtime, the number of distinct regular expressions is expected to be small
+    private static final Map<String, Pattern> PATTERNS = new ConcurrentHashMap<>();
+
+    private PatternRegistry() {
+        // util class
+    }
+
+    /**
+     * Returns the compiled pattern of given regular expression, which is compiled on first use only.
+     *
+     * @param regex Regular expression, e.g. composed of constants and configured values
+     * @return Compiled pattern
+     */
+    public static Pattern get(String regex) {
+        return PATTERNS.computeIfAbsent(regex, Pattern::compile);
+    }
+
+    /**
+     * Creates a matcher of the compiled pattern of given regular expression.
+     *
+     * @param regex Regular expression
+     * @param input Text to be matched
+     * @return New matcher
+     */
+    public static Matcher matcher(String regex, CharSequence input) {
+        return get(regex).matcher(input);
+    }
+}
@@ -0,0 +1,96 @@
+package ch.fhnw.jobannotations.utils;
+
+import edu.stanford.nlp.pipeline.Annotation;
+import edu.stanford.nlp.pipeline.StanfordCoreNLP;
+import org.apache.log4j.Logger;
+
+import java.util.Properties;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Bounded pool of StanfordCoreNLP pipelines with identical configuration. Pipelines are created on demand up to the
+ * configured pool size. All pipelines share the same read-only models, since StanfordCoreNLP caches its annotators
+ * per configuration, so additional pipelines only cost a few objects. Threads that annotate while all pipelines are
+ * in use wait until a pipeline is returned to the pool.
+ */
+public class PipelinePool {
+    private final static Logger LOG = Logger.getLogger(PipelinePool.class);
+
+    private final Properties properties;
+    private final int maxSize;
+    private final AtomicInteger size = new AtomicInteger();
+    private final BlockingQueue<StanfordCoreNLP> idlePipelines = new LinkedBlockingQueue<>();
+
+    /**
+     * Constructs a pool and eagerly creates the first pipeline, which loads the models.
+     *
+     * @param properties Configuration of the pipelines
+     * @param maxSize    Max number of pipelines in this pool
+     */
+    public PipelinePool(Properties properties, int maxSize) {
+        this.properties = properties;
+        this.maxSize = Math.max(1, maxSize);
+
+        size.incrementAndGet();
+        idlePipelines.add(new StanfordCoreNLP(properties));
+    }
+
+    /**
+     * Annotates given document with a pipeline of this pool.
+     *
+     * @param document Document to be annotated
+     */
+    public void annotate(Annotation document) {
+        StanfordCoreNLP pipeline = acquire();
+        try {
+            pipeline.annotate(document);
+        } finally {
+            idlePipelines.add(pipeline);
+        }
+    }
+
+    /**
+     * Takes an idle pipeline from the pool. Creates a new pipeline if the pool is not exhausted yet, otherwise waits
+     * for a pipeline to be returned.
+     *
+     * @return Pipeline to be used exclusively by the calling thread
+     */
+    private StanfordCoreNLP acquire() {
+        StanfordCoreNLP pipeline = idlePipelines.poll();
+        if (pipeline != null) {
+            return pipeline;
+        }
+
+        int currentSize = size.get();
+        while (currentSize < maxSize) {
+            if (size.compareAndSet(currentSize, currentSize + 1)) {
+                LOG.debug("Creating pipeline " + (currentSize + 1) + " of " + maxSize);
+                try {
+                    return new StanfordCoreNLP(properties);
+                } catch (RuntimeException e) {
+                    size.decrementAndGet();
+                    throw e;
+                }
+            }
+            currentSize = size.get();
+        }
+
+        try {
+            return idlePipelines.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for an NLP pipeline", e);
+        }
+    }
+
+    /**
+     * Returns the max number of pipelines in this pool.
+     *
+     * @return Max pool size
+     */
+    public int getMaxSize() {
+        return maxSize;
+    }
+}
@@ -1,5 +1,8 @@
 package ch.fhnw.jobannotations.utils;
 
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -12,6 +15,10 @@ public class StringUtils extends org.apache.commons.lang3.StringUtils {
 
     // regex to filter special characters
     public static final String SPECIAL_CHARS = "[$&+,:;=?@#<>.^*%!\\-/]";
+    public static final Pattern PATTERN_SPECIAL_CHARS = Pattern.compile(SPECIAL_CHARS);
+
+    // regex to find complete sentences within a line
+    private static final Pattern PATTERN_SENTENCE = Pattern.compile("[^.!?:]+[.!?:]");
 
     private StringUtils() {
         // private constructor
@@ -36,7 +43,7 @@ public class StringUtils extends org.apache.commons.lang3.StringUtils {
      * @see #SPECIAL_CHARS
      */
     public static String removeSpecialChars(String text) {
-        return text.replaceAll(SPECIAL_CHARS, "");
+        return PATTERN_SPECIAL_CHARS.matcher(text).replaceAll("");
     }
 
 
@@ -49,14 +56,14 @@ public class StringUtils extends org.apache.commons.lang3.StringUtils {
     public static String extractSentencesFromPlaintText(String plainText) {
         StringBuilder sentences = new StringBuilder();
         boolean firstLine = true;
+        Matcher sentenceMatcher = PATTERN_SENTENCE.matcher("");
         for (String line : plainText.split("\n")) {
             line = line.trim();
             if (line.isEmpty()) {
                 continue;
             }
 
-            String sentenceRegex = "[^.!?:]+[.!?:]";
-            Matcher sentenceMatcher = Pattern.compile(sentenceRegex).matcher(line);
+            sentenceMatcher.reset(line);
             while (sentenceMatcher.find()) {
                 String sentence = sentenceMatcher.group().trim();
                 if (sentence.isEmpty()) {
@@ -75,4 +82,25 @@ public class StringUtils extends org.apache.commons.lang3.StringUtils {
         }
         return sentences.toString();
     }
+
+    /**
+     * Calculates the SHA-256 hash of given text.
+     *
+     * @param text Text to hash
+     * @return Hash as hex String
+     */
+    public static String hash(String text) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(text.getBytes(StandardCharsets.UTF_8));
+            StringBuilder hex = new StringBuilder(digest.length * 2);
+            for (byte b : digest) {
+                hex.append(String.format("%02x", b));
+            }
+            return hex.toString();
+
+        } catch (NoSuchAlgorithmException e) {
+            // every JVM has to support SHA-256
+            throw new IllegalStateException(e);
+        }
+    }
 }
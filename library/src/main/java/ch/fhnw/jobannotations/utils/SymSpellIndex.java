@@ -0,0 +1,234 @@
+package ch.fhnw.jobannotations.utils;
+
+import com.aliasi.chunk.ChunkFactory;
+import com.aliasi.chunk.Chunking;
+import com.aliasi.chunk.ChunkingImpl;
+import com.aliasi.dict.DictionaryEntry;
+import com.aliasi.dict.TrieDictionary;
+import com.aliasi.tokenizer.Tokenizer;
+import com.aliasi.tokenizer.TokenizerFactory;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Fuzzy lookup index of a dictionary based on the symmetric delete algorithm (SymSpell). All variants of the dictionary
+ * phrases with up to the indexed max distance of deleted characters are computed once. A text is looked up by computing
+ * the deletions of its spans and verifying the few phrases sharing a deletion with the Levenshtein distance.
+ * <p>
+ * The chunks found are the same as those of an {@link com.aliasi.dict.ApproxDictionaryChunker} with unit edit costs:
+ * every span starting and ending at token boundaries is matched with the closest phrase of the dictionary.
+ */
+public class SymSpellIndex {
+
+    private final TokenizerFactory tokenizerFactory;
+    private final int maxDistance;
+    private final String[] phrases;
+    private final String[] categories;
+    private final Map<String, int[]> deletions = new HashMap<>();
+    private int minPhraseLength = Integer.MAX_VALUE;
+    private int maxPhraseLength;
+
+    /**
+     * Constructs and builds the index of given dictionary.
+     *
+     * @param dictionary       Dictionary to be indexed
+     * @param tokenizerFactory Tokenizer factory defining the token boundaries of looked up texts
+     * @param maxDistance      Max distance supported by the index
+     */
+    public SymSpellIndex(TrieDictionary<String> dictionary, TokenizerFactory tokenizerFactory, int maxDistance) {
+        this.tokenizerFactory = tokenizerFactory;
+        this.maxDistance = Math.max(0, maxDistance);
+
+        List<String> phraseList = new ArrayList<>();
+        List<String> categoryList = new ArrayList<>();
+        for (DictionaryEntry<String> entry : dictionary) {
+            if (!entry.phrase().isEmpty()) {
+                phraseList.add(entry.phrase());
+                categoryList.add(entry.category());
+            }
+        }
+        phrases = phraseList.toArray(new String[phraseList.size()]);
+        categories = categoryList.toArray(new String[categoryList.size()]);
+
+        for (int i = 0; i < phrases.length; i++) {
+            minPhraseLength = Math.min(minPhraseLength, phrases[i].length());
+            maxPhraseLength = Math.max(maxPhraseLength, phrases[i].length());
+            for (String deletion : getDeletions(phrases[i], this.maxDistance)) {
+                addDeletion(deletion, i);
+            }
+        }
+    }
+
+    /**
+     * Finds all spans of given text within given max distance of a dictionary phrase. Every span is reported once with
+     * the distance of its closest phrase as score.
+     *
+     * @param text        Text to be analysed
+     * @param maxDistance Max distance of the spans, must not be greater than {@link #getMaxDistance()}
+     * @return Chunking of the found spans
+     */
+    public Chunking chunk(CharSequence text, int maxDistance) {
+        if (maxDistance > this.maxDistance) {
+            throw new IllegalArgumentException("Max distance " + maxDistance + " exceeds indexed distance " + this.maxDistance);
+        }
+
+        String string = text.toString();
+        ChunkingImpl chunking = new ChunkingImpl(string);
+        if (phrases.length == 0) {
+            return chunking;
+        }
+
+        char[] chars = string.toCharArray();
+
+        // collect token boundaries
+        boolean[] tokenStarts = new boolean[chars.length + 1];
+        boolean[] tokenEnds = new boolean[chars.length + 1];
+        Tokenizer tokenizer = tokenizerFactory.tokenizer(chars, 0, chars.length);
+        String token;
+        while ((token = tokenizer.nextToken()) != null) {
+            int start = tokenizer.lastTokenStartPosition();
+            tokenStarts[start] = true;
+            tokenEnds[start + token.length()] = true;
+        }
+
+        for (int start = 0; start < chars.length; start++) {
+            if (!tokenStarts[start]) {
+                continue;
+            }
+
+            int minEnd = start + Math.max(1, minPhraseLength - maxDistance);
+            int maxEnd = Math.min(chars.length, start + maxPhraseLength + maxDistance);
+            for (int end = minEnd; end <= maxEnd; end++) {
+                if (!tokenEnds[end]) {
+                    continue;
+                }
+
+                String span = string.substring(start, end);
+                int bestPhrase = -1;
+                int bestDistance = maxDistance + 1;
+                for (String deletion : getDeletions(span, maxDistance)) {
+                    int[] candidates = deletions.get(deletion);
+                    if (candidates == null) {
+                        continue;
+                    }
+                    for (int candidate : candidates) {
+                        int distance = calcLevenshteinDistance(span, phrases[candidate], bestDistance - 1);
+                        if (distance < bestDistance) {
+                            bestDistance = distance;
+                            bestPhrase = candidate;
+                        }
+                    }
+                }
+
+                if (bestPhrase >= 0) {
+                    chunking.add(ChunkFactory.createChunk(start, end, categories[bestPhrase], bestDistance));
+                }
+            }
+        }
+
+        return chunking;
+    }
+
+    /**
+     * Returns the max distance supported by this index.
+     *
+     * @return Indexed max distance
+     */
+    public int getMaxDistance() {
+        return maxDistance;
+    }
+
+    /**
+     * Adds given phrase to the phrases sharing given deletion.
+     *
+     * @param deletion    Phrase with deleted characters
+     * @param phraseIndex Index of the phrase
+     */
+    private void addDeletion(String deletion, int phraseIndex) {
+        int[] phraseIndexes = deletions.get(deletion);
+        if (phraseIndexes == null) {
+            deletions.put(deletion, new int[]{phraseIndex});
+        } else if (phraseIndexes[phraseIndexes.length - 1] != phraseIndex) {
+            int[] extendedIndexes = Arrays.copyOf(phraseIndexes, phraseIndexes.length + 1);
+            extendedIndexes[phraseIndexes.length] = phraseIndex;
+            deletions.put(deletion, extendedIndexes);
+        }
+    }
+
+    /**
+     * Returns all variants of given word with up to given number of deleted characters, including the word itself.
+     *
+     * @param word         Word to be varied
+     * @param maxDeletions Max number of deleted characters
+     * @return Distinct variants of the word
+     */
+    private static Set<String> getDeletions(String word, int maxDeletions) {
+        Set<String> variants = new HashSet<>();
+        variants.add(word);
+
+        List<String> currentVariants = new ArrayList<>(variants);
+        for (int deletions = 0; deletions < maxDeletions; deletions++) {
+            List<String> nextVariants = new ArrayList<>();
+            for (String variant : currentVariants) {
+                for (int i = 0; i < variant.length(); i++) {
+                    String deletion = variant.substring(0, i) + variant.substring(i + 1);
+                    if (variants.add(deletion)) {
+                        nextVariants.add(deletion);
+                    }
+                }
+            }
+            currentVariants = nextVariants;
+        }
+
+        return variants;
+    }
+
+    /**
+     * Calculates the Levenshtein distance of given words, stopping early if the distance exceeds given max distance.
+     *
+     * @param a           First word
+     * @param b           Second word
+     * @param maxDistance Max distance of interest
+     * @return Distance of the words or a value greater than max distance
+     */
+    private static int calcLevenshteinDistance(String a, String b, int maxDistance) {
+        if (Math.abs(a.length() - b.length()) > maxDistance) {
+            return maxDistance + 1;
+        }
+
+        int[] previousRow = new int[b.length() + 1];
+        int[] currentRow = new int[b.length() + 1];
+        for (int j = 0; j <= b.length(); j++) {
+            previousRow[j] = j;
+        }
+
+        for (int i = 1; i <= a.length(); i++) {
+            currentRow[0] = i;
+            int rowMin = i;
+            char c = a.charAt(i - 1);
+            for (int j = 1; j <= b.length(); j++) {
+                int substitution = previousRow[j - 1] + (c == b.charAt(j - 1) ? 0 : 1);
+                int deletion = previousRow[j] + 1;
+                int insertion = currentRow[j - 1] + 1;
+                currentRow[j] = Math.min(substitution, Math.min(deletion, insertion));
+                rowMin = Math.min(rowMin, currentRow[j]);
+            }
+
+            if (rowMin > maxDistance) {
+                return maxDistance + 1;
+            }
+
+            int[] row = previousRow;
+            previousRow = currentRow;
+            currentRow = row;
+        }
+
+        return previousRow[b.length()];
+    }
+}
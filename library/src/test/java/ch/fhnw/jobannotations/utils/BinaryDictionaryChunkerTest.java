@@ -0,0 +1,98 @@
+package ch.fhnw.jobannotations.utils;
+
+import com.aliasi.chunk.Chunk;
+import com.aliasi.chunk.Chunking;
+import com.aliasi.dict.ApproxDictionaryChunker;
+import com.aliasi.dict.DictionaryEntry;
+import com.aliasi.dict.TrieDictionary;
+import com.aliasi.spell.FixedWeightEditDistance;
+import com.aliasi.tokenizer.IndoEuropeanTokenizerFactory;
+import com.aliasi.tokenizer.TokenizerFactory;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Pins the chunks of a {@link BinaryDictionaryChunker} to those of an {@link ApproxDictionaryChunker} with unit edit
+ * costs on the same entries, and tests the lookups of a {@link MappedDictionary}.
+ */
+public class BinaryDictionaryChunkerTest {
+
+    private static final TokenizerFactory TOKENIZER_FACTORY = IndoEuropeanTokenizerFactory.INSTANCE;
+    private static final String CATEGORY = "SKILL";
+
+    private static final List<String> ENTRIES = Arrays.asList(
+            "Java", "JavaScript", "Java EE", "SQL", "MS-SQL", "C", "C++", "C#", "Angular", "AngularJS",
+            "Deutschkenntnisse", "Englischkenntnisse", "Französisch", "Zürich", "Genève", "Basel-Stadt",
+            "Informatik", "Wirtschaftsinformatik", "Projektleiter/in", "Bauführer/in HF", "Emoji 😀", "Ä", "Äb");
+
+    private static final List<String> TEXTS = Arrays.asList(
+            "Wir suchen einen Java Entwickler mit Kenntnissen in JavaScript, Angular und SQL.",
+            "Javascript, Jave EE, MS SQL und AngularJs sind von Vorteil.",
+            "Sehr gute Deutschkentnisse und gute Englischkenntnise, Franzoesisch von Vorteil.",
+            "Arbeitsort: Zurich oder Geneve, Basel-Stadt, Zürich-Oerlikon",
+            "C, C++ und C# oder Wirtschaftsinformatik bzw. Informatiker/in",
+            "Projektleiter/in Bau, Bauführer/in HF oder Bauführerin HF",
+            "Emoji 😀 und Emoji 😁, Ä Äb Ab A",
+            "",
+            "   ");
+
+    @Test
+    public void chunksMatchChunksOfApproxDictionaryChunker() {
+        TrieDictionary<String> trieDictionary = new TrieDictionary<>();
+        for (String entry : ENTRIES) {
+            trieDictionary.addEntry(new DictionaryEntry<>(entry, CATEGORY));
+        }
+        MappedDictionary mappedDictionary = new MappedDictionary(BinaryDictionary.create(ENTRIES), CATEGORY);
+
+        for (double maxDistance : new double[]{0, 1, 1.5, 2, 3}) {
+            ApproxDictionaryChunker expectedChunker = new ApproxDictionaryChunker(trieDictionary, TOKENIZER_FACTORY,
+                    new FixedWeightEditDistance(0, -1, -1, -1, Double.NaN), maxDistance);
+            BinaryDictionaryChunker chunker = new BinaryDictionaryChunker(mappedDictionary, TOKENIZER_FACTORY, maxDistance);
+
+            for (String text : TEXTS) {
+                assertEquals(maxDistance + " " + text, toStrings(expectedChunker.chunk(text)), toStrings(chunker.chunk(text)));
+            }
+        }
+    }
+
+    @Test
+    public void chunksOfCharacterRangeAreRelativeToItsStart() {
+        MappedDictionary mappedDictionary = new MappedDictionary(BinaryDictionary.create(ENTRIES), CATEGORY);
+        BinaryDictionaryChunker chunker = new BinaryDictionaryChunker(mappedDictionary, TOKENIZER_FACTORY, 0);
+
+        char[] chars = "xx Java yy".toCharArray();
+        assertEquals(new TreeSet<>(Arrays.asList("0-4:0.0:" + CATEGORY)), toStrings(chunker.chunk(chars, 3, 7)));
+    }
+
+    @Test
+    public void mappedDictionaryLooksUpEntries() {
+        MappedDictionary dictionary = new MappedDictionary(BinaryDictionary.create(ENTRIES), CATEGORY);
+
+        assertEquals(ENTRIES.size(), dictionary.size());
+        assertEquals(CATEGORY, dictionary.phraseEntryList("Zürich").get(0).category());
+        assertTrue(dictionary.phraseEntryList("Zurich").isEmpty());
+        assertTrue(dictionary.phraseEntryList("").isEmpty());
+
+        MappedDictionary extendedDictionary = dictionary.withPhrases(Arrays.asList("Hibernate", "Java"));
+        assertEquals(ENTRIES.size() + 1, extendedDictionary.size());
+        assertFalse(extendedDictionary.phraseEntryList("Hibernate").isEmpty());
+        assertTrue(dictionary.phraseEntryList("Hibernate").isEmpty());
+        assertEquals(extendedDictionary.size(), extendedDictionary.entryList().size());
+    }
+
+    private static Set<String> toStrings(Chunking chunking) {
+        Set<String> chunks = new TreeSet<>();
+        for (Chunk chunk : chunking.chunkSet()) {
+            chunks.add(chunk.start() + "-" + chunk.end() + ":" + chunk.score() + ":" + chunk.type());
+        }
+        return chunks;
+    }
+}
@@ -0,0 +1,42 @@
+package ch.fhnw.jobannotations.utils;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests reloading a changed file registered with the {@link DictionaryRegistry} of this process.
+ */
+public class DictionaryRegistryTest {
+
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void reloadOfChangedFileIncrementsVersion() throws Exception {
+        Path file = folder.newFile("languages.txt").toPath();
+        Files.write(file, Arrays.asList("Deutsch", "Englisch"), StandardCharsets.UTF_8);
+
+        DictionaryRegistry registry = DictionaryRegistry.getInstance();
+        assertEquals(Arrays.asList("Deutsch", "Englisch"), registry.getEntries(file.toString()));
+        long version = registry.getVersion();
+
+        Files.write(file, Arrays.asList("Deutsch", "Englisch", "Italienisch"), StandardCharsets.UTF_8);
+
+        // the version is incremented after the entries have been published
+        long timeout = System.currentTimeMillis() + 30000;
+        while (registry.getVersion() == version && System.currentTimeMillis() < timeout) {
+            Thread.sleep(10);
+        }
+        assertTrue("version not incremented", registry.getVersion() > version);
+        assertEquals(Arrays.asList("Deutsch", "Englisch", "Italienisch"), registry.getEntries(file.toString()));
+    }
+}
@@ -0,0 +1,177 @@
+package ch.fhnw.jobannotations.utils;
+
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Document;
+import org.jsoup.nodes.Element;
+import org.jsoup.nodes.Node;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.function.Predicate;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Pins the plain text extracted from the DOM by {@link HtmlPlainTextVisitor} to the result of
+ * {@link HtmlUtils#getPlainTextFromHtml(String)} for the pretty printed HTML, and the HTML serialised by
+ * {@link HtmlSerialisingVisitor} to the HTML of a copy without the excluded nodes. Both visitors depend on the pretty
+ * printer and the tree builder of jsoup, so these tests fail if an upgrade of jsoup changes either of them.
+ */
+public class HtmlUtilsTest {
+
+    private static final List<String> POSTINGS = Arrays.asList(
+            "java-developer.html", "table-layout.html", "portal.html", "plain-text-mail.html");
+
+    // tags excluded from the HTML searched for job titles
+    private static final List<String> IRRELEVANT_TAGS = Arrays.asList(
+            "style", "script", "meta", "link", "a", "input", "button");
+
+    private static final List<String> SNIPPETS = Arrays.asList(
+            "<p>first<p>second",
+            "<div>a</p>b</div>",
+            "<b>bold</b> <b>bold</b><br><b>bold</b>",
+            "<p class=\"lead\">attributes</p><P>upper case</P>",
+            "<ul><li>one<li>two</ul><ol><li><b>three</b></li></ol>",
+            "<table><tr><td><p>cell</td></tr></table>after",
+            "<!-- comment --><span>a</span><!-- another -->b",
+            "<pre>  keep\n  whitespace  </pre><textarea> as  is </textarea>",
+            "<iframe>a &amp; b &lt;c&gt;</iframe><xmp>raw &nbsp;</xmp>",
+            "text&nbsp;with&nbsp;&nbsp;non-breaking spaces<br/>and<br />breaks",
+            "<title>in body</title><noscript>no script</noscript><div>after</div>");
+
+    @Test
+    public void plainTextOfPostingsMatchesPlainTextOfHtml() throws IOException {
+        for (String posting : POSTINGS) {
+            Document document = loadPosting(posting);
+            assertPlainText(posting, document);
+            for (Element element : document.getAllElements()) {
+                assertPlainText(posting + " " + element.cssSelector(), element);
+            }
+        }
+    }
+
+    @Test
+    public void plainTextOfSnippetsMatchesPlainTextOfHtml() {
+        for (String snippet : SNIPPETS) {
+            Document document = Jsoup.parse(snippet);
+            assertPlainText(snippet, document);
+            assertPlainText(snippet, document.body());
+        }
+    }
+
+    @Test
+    public void plainTextWithExcludedNodesMatchesPlainTextOfPrunedCopy() throws IOException {
+        for (String posting : POSTINGS) {
+            Document document = loadPosting(posting);
+            Random random = new Random(posting.hashCode());
+
+            for (int run = 0; run < 20; run++) {
+                Set<Node> excludedNodes = Collections.newSetFromMap(new IdentityHashMap<>());
+                for (Node node : getDescendants(document.body())) {
+                    if (random.nextInt(8) == 0) {
+                        excludedNodes.add(node);
+                    }
+                }
+
+                String expected = HtmlUtils.getPlainTextFromHtml(getHtmlOfCopy(document.body(), excludedNodes::contains));
+                assertEquals(posting + " run " + run, expected,
+                        HtmlUtils.getPlainText(document.body(), excludedNodes::contains));
+            }
+        }
+    }
+
+    @Test
+    public void htmlWithExcludedNodesMatchesHtmlOfCopy() throws IOException {
+        for (String posting : POSTINGS) {
+            Document document = loadPosting(posting);
+            Random random = new Random(posting.hashCode());
+
+            for (int run = 0; run < 20; run++) {
+                Set<Node> excludedNodes = Collections.newSetFromMap(new IdentityHashMap<>());
+                for (Node node : getDescendants(document)) {
+                    if (random.nextInt(8) == 0) {
+                        excludedNodes.add(node);
+                    }
+                }
+
+                Element element = run % 2 == 0 ? document : document.body();
+                assertEquals(posting + " run " + run, getHtmlOfCopy(element, excludedNodes::contains),
+                        HtmlUtils.getHtml(element, excludedNodes::contains));
+            }
+        }
+    }
+
+    @Test
+    public void htmlWithoutIrrelevantTagsMatchesHtmlOfCopy() throws IOException {
+        for (String posting : POSTINGS) {
+            Document document = loadPosting(posting);
+            Predicate<Node> irrelevantElement = node -> node instanceof Element
+                    && IRRELEVANT_TAGS.contains(((Element) node).tagName());
+
+            Document expected = document.clone();
+            for (String irrelevantTag : IRRELEVANT_TAGS) {
+                expected.getElementsByTag(irrelevantTag).remove();
+            }
+            assertEquals(posting, expected.html(), HtmlUtils.getHtml(document, irrelevantElement));
+        }
+    }
+
+    @Test
+    public void htmlWithExcludedNodesLeavesOriginalUntouched() throws IOException {
+        Document document = loadPosting("java-developer.html");
+        String html = document.html();
+
+        Element footer = document.getElementsByTag("footer").first();
+        String prunedHtml = HtmlUtils.getHtml(document, node -> node == footer);
+
+        Document copy = HtmlUtils.getCopy(document, node -> node == footer);
+
+        assertEquals(html, document.html());
+        Document expected = document.clone();
+        expected.getElementsByTag("footer").remove();
+        assertEquals(expected.html(), prunedHtml);
+        assertEquals(expected.html(), copy.html());
+    }
+
+    private static void assertPlainText(String message, Element element) {
+        assertEquals(message, HtmlUtils.getPlainTextFromHtml(element.html()), HtmlUtils.getPlainText(element));
+    }
+
+    /**
+     * Serialises a copy of given element without the excluded nodes with the output settings of its document.
+     */
+    private static String getHtmlOfCopy(Element element, Predicate<Node> exclusion) {
+        Element copy = HtmlUtils.getCopy(element, exclusion);
+        if (!(copy instanceof Document)) {
+            Document document = new Document(element.baseUri());
+            document.outputSettings(element.ownerDocument().outputSettings().clone());
+            document.appendChild(copy);
+        }
+        return copy.html();
+    }
+
+    private static List<Node> getDescendants(Element element) {
+        List<Node> descendants = new ArrayList<>();
+        for (Element descendant : element.getAllElements()) {
+            if (descendant != element) {
+                descendants.add(descendant);
+            }
+            descendants.addAll(descendant.childNodes());
+        }
+        return descendants;
+    }
+
+    private static Document loadPosting(String posting) throws IOException {
+        try (InputStream input = HtmlUtilsTest.class.getResourceAsStream("/postings/" + posting)) {
+            return Jsoup.parse(input, "UTF-8", "http://example.com/");
+        }
+    }
+}
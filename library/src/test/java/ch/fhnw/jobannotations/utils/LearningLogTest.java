@@ -0,0 +1,268 @@
+package ch.fhnw.jobannotations.utils;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests appending to and compacting a {@link LearningLog} from several threads and processes. Every test uses its own
+ * train file, so it gets a new learning log with an empty index. Other processes are started with
+ * {@link AppendingProcess} on the classpath of the tests.
+ */
+public class LearningLogTest {
+
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void compactionMergesLogIntoSortedTrainFile() throws IOException {
+        Path trainFile = createTrainFile("banana", "apple", "banana");
+        LearningLog learningLog = LearningLog.forFile(trainFile.toString());
+
+        learningLog.append("cherry\napple\n\nbanana");
+        learningLog.append("date");
+        assertEquals(Arrays.asList("cherry", "date"), readLines(LearningLog.getLogFile(trainFile)));
+
+        learningLog.compact();
+
+        assertEquals(Arrays.asList("apple", "banana", "cherry", "date"), readLines(trainFile));
+        assertEquals(0, Files.size(LearningLog.getLogFile(trainFile)));
+    }
+
+    @Test
+    public void compactionCreatesMissingTrainFile() throws IOException {
+        Path trainFile = folder.getRoot().toPath().resolve("missing.txt");
+        LearningLog learningLog = LearningLog.forFile(trainFile.toString());
+
+        learningLog.append("b\na");
+        learningLog.compact();
+
+        assertEquals(Arrays.asList("a", "b"), readLines(trainFile));
+    }
+
+    @Test
+    public void compactionReplacesLeftoverCompactionFile() throws IOException {
+        Path trainFile = createTrainFile("apple");
+        Path compactionFile = trainFile.resolveSibling(trainFile.getFileName() + ".compaction");
+        // written by a process which has been killed while compacting, before the train file has been replaced
+        Files.write(compactionFile, Arrays.asList("apple", "broken ent"), StandardCharsets.UTF_8);
+
+        LearningLog learningLog = LearningLog.forFile(trainFile.toString());
+        learningLog.append("banana");
+        learningLog.compact();
+
+        assertEquals(Arrays.asList("apple", "banana"), readLines(trainFile));
+        assertFalse(Files.exists(compactionFile));
+    }
+
+    @Test
+    public void compactionKeepsEntriesOfLogLeftByKilledCompaction() throws IOException {
+        Path trainFile = createTrainFile("apple", "banana");
+        // the train file has been replaced, but the process has been killed before truncating the log
+        Files.write(LearningLog.getLogFile(trainFile), Arrays.asList("banana", "cherry"), StandardCharsets.UTF_8);
+
+        LearningLog learningLog = LearningLog.forFile(trainFile.toString());
+        learningLog.append("cherry\ndate");
+        learningLog.compact();
+
+        assertEquals(Arrays.asList("apple", "banana", "cherry", "date"), readLines(trainFile));
+        assertEquals(0, Files.size(LearningLog.getLogFile(trainFile)));
+    }
+
+    @Test
+    public void concurrentAppendsAreWrittenOnce() throws Exception {
+        Path trainFile = createTrainFile("entry-0");
+        LearningLog learningLog = LearningLog.forFile(trainFile.toString());
+
+        int nofThreads = 8;
+        int nofEntries = 300;
+        ExecutorService executor = Executors.newFixedThreadPool(nofThreads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int thread = 0; thread < nofThreads; thread++) {
+            int offset = thread * nofEntries / 2;
+            futures.add(executor.submit(() -> {
+                start.await();
+                for (int i = 0; i < nofEntries; i++) {
+                    // neighbouring threads learn half of their entries both
+                    learningLog.append("entry-" + (offset + i));
+                    if (i % 50 == 0) {
+                        learningLog.compact();
+                    }
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(60, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        List<String> logEntries = readLines(LearningLog.getLogFile(trainFile));
+        assertEquals("log contains duplicates", new TreeSet<>(logEntries).size(), logEntries.size());
+
+        learningLog.compact();
+        Set<String> expectedEntries = new TreeSet<>();
+        for (int i = 0; i < (nofThreads + 1) * nofEntries / 2; i++) {
+            expectedEntries.add("entry-" + i);
+        }
+        assertEquals(new ArrayList<>(expectedEntries), readLines(trainFile));
+    }
+
+    @Test
+    public void concurrentAppendsOfProcessesAreNotInterleaved() throws Exception {
+        Path trainFile = createTrainFile();
+        int nofEntries = 500;
+
+        List<Process> processes = new ArrayList<>();
+        processes.add(startAppendingProcess(trainFile, nofEntries, "first", "shared"));
+        processes.add(startAppendingProcess(trainFile, nofEntries, "second", "shared"));
+        // start appending while the other processes append
+        Path logFile = LearningLog.getLogFile(trainFile);
+        long timeout = System.currentTimeMillis() + 30000;
+        while ((!Files.exists(logFile) || Files.size(logFile) == 0) && System.currentTimeMillis() < timeout) {
+            Thread.sleep(10);
+        }
+
+        LearningLog learningLog = LearningLog.forFile(trainFile.toString());
+        for (int i = 0; i < nofEntries; i++) {
+            learningLog.append("own-" + i + "\nshared-" + i);
+        }
+        waitFor(processes);
+
+        Set<String> expectedEntries = new TreeSet<>();
+        for (int i = 0; i < nofEntries; i++) {
+            expectedEntries.addAll(Arrays.asList("first-" + i, "second-" + i, "own-" + i, "shared-" + i));
+        }
+
+        // every line has been written completely, only shared entries may have been appended by several processes
+        List<String> logEntries = readLines(logFile);
+        assertEquals(expectedEntries, new TreeSet<>(logEntries));
+        List<String> ownEntries = new ArrayList<>();
+        for (String entry : logEntries) {
+            if (!entry.startsWith("shared-")) {
+                ownEntries.add(entry);
+            }
+        }
+        assertEquals(3 * nofEntries, ownEntries.size());
+
+        learningLog.compact();
+        assertEquals(new ArrayList<>(expectedEntries), readLines(trainFile));
+    }
+
+    @Test
+    public void entriesAreDeduplicatedAcrossRestarts() throws Exception {
+        Path trainFile = createTrainFile("apple");
+        waitFor(Collections.singletonList(startAppendingProcess(trainFile, 2, "fruit")));
+
+        // a restarted process loads the entries of the train file and the log
+        LearningLog learningLog = LearningLog.forFile(trainFile.toString());
+        learningLog.append("apple\nfruit-0\nfruit-1\nfruit-2");
+        assertEquals(Arrays.asList("fruit-0", "fruit-1", "fruit-2"), readLines(LearningLog.getLogFile(trainFile)));
+
+        learningLog.compact();
+        waitFor(Collections.singletonList(startAppendingProcess(trainFile, 4, "fruit")));
+
+        assertEquals(Collections.singletonList("fruit-3"), readLines(LearningLog.getLogFile(trainFile)));
+    }
+
+    @Test
+    public void compactionOfOwnEntriesIsNotReloaded() throws Exception {
+        Path trainFile = createTrainFile("apple");
+        CountDownLatch reloaded = new CountDownLatch(1);
+        DictionaryRegistry.getInstance().addChangeListener(trainFile.toString(), file -> reloaded.countDown());
+
+        LearningLog learningLog = LearningLog.forFile(trainFile.toString());
+        learningLog.append("banana");
+        learningLog.compact();
+
+        assertFalse("own entries reloaded", reloaded.await(3, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void compactionOfEntriesOfOthersIsReloaded() throws Exception {
+        Path trainFile = createTrainFile("apple");
+        CountDownLatch reloaded = new CountDownLatch(1);
+        DictionaryRegistry.getInstance().addChangeListener(trainFile.toString(), file -> reloaded.countDown());
+
+        LearningLog learningLog = LearningLog.forFile(trainFile.toString());
+        learningLog.append("banana");
+        waitFor(Collections.singletonList(startAppendingProcess(trainFile, 1, "cherry")));
+        learningLog.compact();
+
+        assertTrue("entries of others not reloaded", reloaded.await(30, TimeUnit.SECONDS));
+        assertEquals(Arrays.asList("apple", "banana", "cherry-0"), readLines(trainFile));
+    }
+
+    private Path createTrainFile(String... entries) throws IOException {
+        File trainFile = folder.newFile();
+        Files.write(trainFile.toPath(), Arrays.asList(entries), StandardCharsets.UTF_8);
+        return trainFile.toPath();
+    }
+
+    private static List<String> readLines(Path file) throws IOException {
+        List<String> lines = new ArrayList<>();
+        for (String line : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+            if (!line.isEmpty()) {
+                lines.add(line);
+            }
+        }
+        return lines;
+    }
+
+    private static Process startAppendingProcess(Path trainFile, int nofEntries, String... prefixes) throws IOException {
+        String java = System.getProperty("java.home") + File.separator + "bin" + File.separator + "java";
+        List<String> command = new ArrayList<>(Arrays.asList(java, "-cp", System.getProperty("java.class.path"),
+                AppendingProcess.class.getName(), trainFile.toString(), String.valueOf(nofEntries)));
+        command.addAll(Arrays.asList(prefixes));
+        return new ProcessBuilder(command).inheritIO().start();
+    }
+
+    private static void waitFor(List<Process> processes) throws InterruptedException {
+        for (Process process : processes) {
+            assertTrue("process did not finish", process.waitFor(60, TimeUnit.SECONDS));
+            assertEquals("process failed", 0, process.exitValue());
+        }
+    }
+
+    /**
+     * Appends entries to the learning log of a train file in a separate process. Arguments are the train file, the
+     * number of appends and the prefixes of the entries. Every append consists of one entry per prefix.
+     */
+    public static class AppendingProcess {
+
+        public static void main(String[] args) throws IOException {
+            LearningLog learningLog = LearningLog.forFile(args[0]);
+            for (int i = 0; i < Integer.parseInt(args[1]); i++) {
+                StringBuilder data = new StringBuilder();
+                for (int prefix = 2; prefix < args.length; prefix++) {
+                    data.append(args[prefix]).append('-').append(i).append('\n');
+                }
+                learningLog.append(data.toString());
+            }
+            System.exit(0);
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package ch.fhnw.jobannotations.utils;
+
+import com.aliasi.dict.DictionaryEntry;
+import com.aliasi.dict.TrieDictionary;
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests learning entries into a {@link ManagedDictionary} and merging a full delta into the base the way
+ * {@link NlpHelper#mergeDictionaries()} does.
+ */
+public class ManagedDictionaryTest {
+
+    private static final String CATEGORY = "SKILL";
+    private static final int MAX_DELTA_SIZE = 150;
+
+    @Test
+    public void learnedEntriesAreFoundInDelta() {
+        ManagedDictionary dictionary = new ManagedDictionary(createBase("Java", "SQL"), CATEGORY, MAX_DELTA_SIZE);
+
+        assertFalse(dictionary.add("Java"));
+        assertTrue(dictionary.add("Angular"));
+        assertFalse(dictionary.add("Angular"));
+
+        assertEquals(1, dictionary.getDeltaSize());
+        assertTrue(dictionary.isDeltaEntry("Angular"));
+        assertFalse(dictionary.isDeltaEntry("Java"));
+        assertNull(new ManagedDictionary(createBase("Java"), CATEGORY, MAX_DELTA_SIZE).createMergedBase());
+    }
+
+    @Test
+    public void deltaSpanningSeveralBatchesContainsEveryEntryOnce() {
+        ManagedDictionary dictionary = new ManagedDictionary(createBase("Java"), CATEGORY, MAX_DELTA_SIZE);
+
+        for (int i = 0; i < MAX_DELTA_SIZE - 1; i++) {
+            assertTrue(dictionary.add("skill-" + i));
+            assertFalse(dictionary.isDeltaFull());
+        }
+
+        int nofEntries = 0;
+        for (TrieDictionary<String> delta : dictionary.getDelta()) {
+            nofEntries += delta.size();
+        }
+        assertEquals(MAX_DELTA_SIZE - 1, nofEntries);
+        assertTrue(dictionary.getDelta().size() <= 2);
+        for (int i = 0; i < MAX_DELTA_SIZE - 1; i++) {
+            assertTrue(dictionary.isDeltaEntry("skill-" + i));
+            assertFalse(dictionary.add("skill-" + i));
+        }
+    }
+
+    @Test
+    public void lookupsFindBaseAndDeltaEntriesAfterMergeOfFullDelta() {
+        ManagedDictionary dictionary = new ManagedDictionary(createBase("Java", "SQL"), CATEGORY, MAX_DELTA_SIZE);
+
+        int nofEntries = 0;
+        while (!dictionary.isDeltaFull()) {
+            dictionary.add("skill-" + nofEntries++);
+        }
+        assertEquals(MAX_DELTA_SIZE, nofEntries);
+
+        TrieDictionary<String> oldBase = dictionary.getBase();
+        dictionary.replaceBase(dictionary.createMergedBase());
+        assertEquals(0, dictionary.getDeltaSize());
+        assertFalse(dictionary.isDeltaFull());
+        assertEquals(2, oldBase.size());
+
+        // entries learned after the merge go into the delta
+        assertTrue(dictionary.add("Angular"));
+        assertFalse(dictionary.add("skill-0"));
+
+        TrieDictionary<String> base = dictionary.getBase();
+        assertEquals(MAX_DELTA_SIZE + 2, base.size());
+        for (String phrase : new String[]{"Java", "SQL", "skill-0", "skill-" + (MAX_DELTA_SIZE - 1)}) {
+            assertEquals(phrase, CATEGORY, base.phraseEntryList(phrase).get(0).category());
+            assertFalse(phrase, dictionary.isDeltaEntry(phrase));
+        }
+        assertTrue(base.phraseEntryList("Angular").isEmpty());
+        assertTrue(dictionary.isDeltaEntry("Angular"));
+        assertEquals(1, dictionary.getDeltaSize());
+    }
+
+    @Test
+    public void replacedBaseKeepsMissingDeltaEntries() {
+        ManagedDictionary dictionary = new ManagedDictionary(createBase("Java"), CATEGORY, MAX_DELTA_SIZE);
+        dictionary.add("Angular");
+        dictionary.add("SQL");
+
+        // reloaded train file containing one of the learned entries
+        dictionary.replaceBase(createBase("Java", "SQL"));
+
+        assertEquals(1, dictionary.getDeltaSize());
+        assertTrue(dictionary.isDeltaEntry("Angular"));
+        assertFalse(dictionary.isDeltaEntry("SQL"));
+    }
+
+    @Test
+    public void mergedBaseOfMappedDictionaryIsMapped() {
+        MappedDictionary mappedBase = new MappedDictionary(BinaryDictionary.create(Arrays.asList("Java", "SQL")), CATEGORY);
+        ManagedDictionary dictionary = new ManagedDictionary(mappedBase, CATEGORY, MAX_DELTA_SIZE);
+        assertFalse(dictionary.add("SQL"));
+        assertTrue(dictionary.add("Angular"));
+
+        dictionary.replaceBase(dictionary.createMergedBase());
+
+        assertTrue(dictionary.getBase() instanceof MappedDictionary);
+        assertEquals(3, dictionary.getBase().size());
+        assertFalse(dictionary.getBase().phraseEntryList("Angular").isEmpty());
+        assertEquals(0, dictionary.getDeltaSize());
+    }
+
+    private static TrieDictionary<String> createBase(String... phrases) {
+        TrieDictionary<String> base = new TrieDictionary<>();
+        for (String phrase : phrases) {
+            base.addEntry(new DictionaryEntry<>(phrase, CATEGORY));
+        }
+        return base;
+    }
+}